@@ -0,0 +1,50 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.mime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tokenizing typical RTSP header values to exhaustion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderTokenizerBenchmark {
+
+   @Param({
+      "RTP/AVP/TCP;unicast;interleaved=0-1;ssrc=1A2B3C4D;mode=\"PLAY\"",
+      "url=rtsp://example.com/live/trackID=1;seq=9810;rtptime=3450012,url=rtsp://example.com/live/trackID=2;seq=1234;rtptime=8810",
+      "OPTIONS, DESCRIBE, SETUP, TEARDOWN, PLAY, PAUSE, GET_PARAMETER"
+   })
+   public String value;
+
+   @Benchmark
+   public void next(Blackhole bh)
+   {
+      HeaderTokenizer tokenizer = new HeaderTokenizer(value, HeaderTokenizer.MIME);
+      HeaderTokenizer.Token token;
+      while((token = tokenizer.next()).getType() != HeaderTokenizer.Token.EOF) {
+         bh.consume(token);
+      }
+   }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.mime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures creating a set of headers from a raw SETUP response header block
+ * and looking up the headers a player actually reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeadersBenchmark {
+
+   private static final byte[] BLOCK = ("CSeq: 3\r\n" +
+                                          "Date: Sat, 18 Oct 2026 12:00:00 GMT\r\n" +
+                                          "Server: Wowza Streaming Engine 4.8.0\r\n" +
+                                          "Cache-Control: no-cache\r\n" +
+                                          "Expires: Sat, 18 Oct 2026 12:00:00 GMT\r\n" +
+                                          "Transport: RTP/AVP/TCP;unicast;interleaved=0-1;ssrc=1A2B3C4D;mode=\"PLAY\"\r\n" +
+                                          "Session: 1843259872;timeout=60\r\n" +
+                                          "\r\n").getBytes(US_ASCII);
+
+   private Headers headers;
+
+   @Setup
+   public void setup()
+   {
+      headers = Headers.create(BLOCK, 0, BLOCK.length);
+   }
+
+
+   @Benchmark
+   public Headers create()
+   {
+      return Headers.create(BLOCK, 0, BLOCK.length);
+   }
+
+   @Benchmark
+   public void createAndGet(Blackhole bh)
+   {
+      Headers headers = Headers.create(BLOCK, 0, BLOCK.length);
+      bh.consume(headers.getHeader("CSeq").getValue());
+      bh.consume(headers.getHeader("Session").getValue());
+      bh.consume(headers.getHeader("Transport").getValue());
+   }
+
+   @Benchmark
+   public void get(Blackhole bh)
+   {
+      bh.consume(headers.getHeader("cseq"));
+      bh.consume(headers.getHeader("Session"));
+      bh.consume(headers.getHeader("Content-Length"));
+   }
+
+}
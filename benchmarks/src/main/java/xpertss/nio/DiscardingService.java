@@ -0,0 +1,74 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.nio;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service which discards every action submitted to it. This allows a
+ * selectable's event handlers to be driven directly by a benchmark without
+ * a selector, reactor thread or timers getting involved.
+ */
+public class DiscardingService implements NioService {
+
+   private static final NioTimeout CANCELLED = new NioTimeout() {
+      public boolean cancel() { return false; }
+      public boolean isCancelled() { return true; }
+      public boolean isExpired() { return false; }
+   };
+
+   private final BufferPool buffers = new BufferPool();
+   private final NioClock clock = new NioClock();   // never advanced
+   private DatagramRing ring;
+
+   @Override
+   public void execute(NioAction action)
+   {
+   }
+
+   @Override
+   public NioTimeout schedule(NioAction action, long delay, TimeUnit unit)
+   {
+      return CANCELLED;
+   }
+
+   @Override
+   public boolean isSelectorThread()
+   {
+      return true;
+   }
+
+   @Override
+   public int getLoad()
+   {
+      return 0;
+   }
+
+   @Override
+   public BufferPool getBufferPool()
+   {
+      return buffers;
+   }
+
+   @Override
+   public DatagramRing getDatagramRing()
+   {
+      if(ring == null) ring = new DatagramRing(32);
+      return ring;
+   }
+
+   @Override
+   public NioClock getClock()
+   {
+      return clock;
+   }
+
+   @Override
+   public void detach()
+   {
+   }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.nio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of handing actions to a {@link NioReactor} from another
+ * thread, including the wakeup of a parked selector, and of executing them on
+ * the reactor thread.
+ * <p/>
+ * An idle pipe is registered with the reactor for the duration of the trial
+ * so that it does not passivate between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactorDispatchBenchmark {
+
+   private static final int BATCH = 64;
+
+   private final AtomicLong executed = new AtomicLong();
+   private final Idle idle = new Idle();
+   private final NioAction action = new NioAction() {
+      public void execute(Selector selector) { executed.lazySet(executed.get() + 1); }
+      public Selectable getSelectable() { return idle; }
+   };
+
+   private NioReactor reactor;
+   private Pipe pipe;
+   private long posted;
+
+   @Setup
+   public void setup() throws IOException
+   {
+      pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      reactor = new NioReactor(new NioProvider() {
+         public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "benchmark-reactor");
+            thread.setDaemon(true);
+            return thread;
+         }
+         public void serviceException(Exception error) { error.printStackTrace(); }
+      });
+      reactor.execute(new NioAction() {
+         public void execute(Selector selector) throws IOException {
+            pipe.source().register(selector, SelectionKey.OP_READ, idle);
+         }
+         public Selectable getSelectable() { return idle; }
+      });
+   }
+
+   @TearDown
+   public void teardown() throws IOException
+   {
+      pipe.source().close();
+      pipe.sink().close();
+      reactor.await(1, TimeUnit.SECONDS);
+   }
+
+
+   /**
+    * Post a single action and wait for it to execute. This is dominated by
+    * the selector wakeup.
+    */
+   @Benchmark
+   public long roundTrip()
+   {
+      reactor.execute(action);
+      return await(++posted);
+   }
+
+   /**
+    * Post a batch of actions and wait for all of them to execute. Only the
+    * first of them should need to wake the selector.
+    */
+   @Benchmark
+   @OperationsPerInvocation(BATCH)
+   public long batch()
+   {
+      for(int i = 0; i < BATCH; i++) reactor.execute(action);
+      return await(posted += BATCH);
+   }
+
+
+   private long await(long target)
+   {
+      long count;
+      while((count = executed.get()) < target) Thread.yield();
+      return count;
+   }
+
+
+   private class Idle implements DataHandler {
+      public void handleRead() { }
+      public void handleWrite() { }
+      public SelectableChannel getChannel() { return pipe.source(); }
+      public void shutdown(Exception ex) { }
+   }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import xpertss.net.PortAllocator;
+import xpertss.nio.DiscardingService;
+import xpertss.util.Version;
+import xpertss.utils.UserAgent;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures {@link RtspSession#handleRead()} demultiplexing a stream of
+ * interleaved RTP frames with an RTSP response in the middle of it, as is seen
+ * when a keep alive is answered during playback.
+ * <p/>
+ * The session is connected over loopback to a peer socket owned by the
+ * benchmark and is driven directly rather than by a reactor. Each invocation
+ * sends one OPTIONS request, then writes the batch of frames and the response
+ * from the peer while reading it with the session until every frame and the
+ * response have been delivered. Results are reported per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FramingBenchmark {
+
+   private static final int FRAMES = 64;
+
+   @Param({ "188", "1400" })
+   public int packetSize;
+
+   private final ByteBuffer discard = ByteBuffer.allocate(8192);
+   private ServerSocketChannel server;
+   private SocketChannel peer;
+   private RtspSession session;
+   private RtspRequest request;
+   private ByteBuffer batch;
+
+   private Blackhole blackhole;
+   private int frames;
+   private int responses;
+
+   private final RtspResponseHandler counter = (session, response) -> responses++;
+
+   @Setup
+   public void setup(Blackhole blackhole) throws IOException
+   {
+      this.blackhole = blackhole;
+      server = ServerSocketChannel.open();
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      InetSocketAddress address = (InetSocketAddress) server.getLocalAddress();
+
+      URI uri = URI.create("rtsp://127.0.0.1:" + address.getPort() + "/bench");
+      session = new RtspSession(new DiscardingService(), new CountingHandler(), uri,
+                                 UserAgent.create("Benchmark", new Version(1, 0)),
+                                 new PortAllocator(50000, 59999));
+      SocketChannel channel = (SocketChannel) session.getChannel();
+      channel.connect(address);
+      peer = server.accept();
+      peer.configureBlocking(false);
+      while(!channel.finishConnect()) Thread.yield();
+      session.handleConnect();
+
+      request = RtspMethod.Options.createRequest(uri);
+      batch = createBatch();
+   }
+
+   @TearDown
+   public void teardown() throws IOException
+   {
+      session.close();
+      peer.close();
+      server.close();
+   }
+
+
+   @Benchmark
+   @OperationsPerInvocation(FRAMES)
+   public int handleRead() throws IOException
+   {
+      frames = responses = 0;
+      session.execute(request, counter);
+      session.handleWrite();
+      do {
+         discard.clear();
+      } while(peer.read(discard) > 0);
+
+      batch.rewind();
+      while(frames < FRAMES || responses < 1) {
+         if(batch.hasRemaining()) peer.write(batch);
+         session.handleRead();
+      }
+      return frames;
+   }
+
+
+   private ByteBuffer createBatch()
+   {
+      byte[] response = ("RTSP/1.0 200 OK\r\n" +
+                           "CSeq: 1\r\n" +
+                           "Session: 1843259872;timeout=60\r\n" +
+                           "\r\n").getBytes(US_ASCII);
+      ByteBuffer buf = ByteBuffer.allocate(FRAMES * (packetSize + 4) + response.length);
+      for(int i = 0; i < FRAMES; i++) {
+         if(i == FRAMES / 2) buf.put(response);
+         buf.put((byte) '$').put((byte) (i & 1)).putShort((short) packetSize);
+         buf.put((byte) 0x80).put((byte) 96).putShort((short) i).putInt(i * 3000).putInt(0x1234);
+         buf.position(buf.position() + packetSize - 12);
+      }
+      buf.flip();
+      return buf;
+   }
+
+
+   private class CountingHandler implements RtspHandler {
+
+      public void onConnect(RtspSession session) { }
+      public void onClose(RtspSession session) { }
+      public void onFailure(RtspSession session, Exception e) { throw new IllegalStateException(e); }
+
+      public void onData(RtspSession session, int channel, ByteBuffer data)
+      {
+         blackhole.consume(data);
+         frames++;
+      }
+   }
+
+}
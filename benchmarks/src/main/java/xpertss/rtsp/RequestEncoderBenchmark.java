@@ -0,0 +1,78 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xpertss.mime.Headers;
+import xpertss.nio.BufferPool;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding requests into pooled buffers as the session's request
+ * writers do, including returning the buffer to the pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestEncoderBenchmark {
+
+   private static final URI BASE = URI.create("rtsp://example.com:554/live/stream.sdp");
+
+   @Param({ "options", "setup", "play" })
+   public String method;
+
+   private final RequestEncoder encoder = new RequestEncoder("Benchmark/1.0 (rtsp-client)");
+   private final BufferPool pool = new BufferPool();
+   private RtspRequest request;
+   private int sequence;
+
+   @Setup
+   public void setup()
+   {
+      switch(method) {
+         case "options":
+            request = RtspMethod.Options.createRequest(BASE);
+            break;
+         case "setup":
+            request = RtspMethod.Setup.createRequest(URI.create(BASE + "/trackID=1"));
+            request.getHeaders().setHeader("Transport", "RTP/AVP/TCP;unicast;interleaved=0-1");
+            request.getHeaders().setHeader("Session", "1843259872");
+            break;
+         default:
+            request = RtspMethod.Play.createRequest(BASE);
+            Headers headers = request.getHeaders();
+            headers.setHeader("Session", "1843259872");
+            headers.setHeader("Range", "npt=0.000-");
+      }
+   }
+
+
+   @Benchmark
+   public int encode()
+   {
+      ByteBuffer encoded = encoder.encode(request, BASE, ++sequence, pool);
+      int length = encoded.remaining();
+      pool.release(encoded);
+      return length;
+   }
+
+}
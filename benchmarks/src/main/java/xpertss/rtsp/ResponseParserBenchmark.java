@@ -0,0 +1,97 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Measures the response parsing performed by the session's response readers,
+ * both the parse of the status line and header block alone and the parse
+ * followed by reading the headers a player consumes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParserBenchmark {
+
+   @Param({ "options", "setup", "play" })
+   public String response;
+
+   private final ResponseParser parser = new ResponseParser();
+   private ByteBuffer src;
+
+   @Setup
+   public void setup()
+   {
+      String text;
+      switch(response) {
+         case "options":
+            text = "RTSP/1.0 200 OK\r\n" +
+                     "CSeq: 1\r\n" +
+                     "Server: Wowza Streaming Engine 4.8.0\r\n" +
+                     "Public: DESCRIBE, SETUP, TEARDOWN, PLAY, PAUSE, OPTIONS, ANNOUNCE, RECORD, GET_PARAMETER\r\n" +
+                     "\r\n";
+            break;
+         case "setup":
+            text = "RTSP/1.0 200 OK\r\n" +
+                     "CSeq: 3\r\n" +
+                     "Date: Sat, 18 Oct 2026 12:00:00 GMT\r\n" +
+                     "Cache-Control: no-cache\r\n" +
+                     "Transport: RTP/AVP/TCP;unicast;interleaved=0-1;ssrc=1A2B3C4D;mode=\"PLAY\"\r\n" +
+                     "Session: 1843259872;timeout=60\r\n" +
+                     "\r\n";
+            break;
+         default:
+            text = "RTSP/1.0 200 OK\r\n" +
+                     "CSeq: 5\r\n" +
+                     "Session: 1843259872;timeout=60\r\n" +
+                     "Range: npt=0.000-\r\n" +
+                     "RTP-Info: url=rtsp://example.com/live/trackID=1;seq=9810;rtptime=3450012," +
+                     "url=rtsp://example.com/live/trackID=2;seq=1234;rtptime=8810\r\n" +
+                     "\r\n";
+      }
+      src = ByteBuffer.wrap(text.getBytes(US_ASCII));
+   }
+
+
+   @Benchmark
+   public RtspResponse parse() throws IOException
+   {
+      src.rewind();
+      return parser.parse(src);
+   }
+
+   @Benchmark
+   public void parseAndRead(Blackhole bh) throws IOException
+   {
+      src.rewind();
+      RtspResponse response = parser.parse(src);
+      bh.consume(response.getStatus());
+      bh.consume(response.getHeaders().getHeader("CSeq").getValue());
+      bh.consume(response.getHeaders().getHeader("Session"));
+   }
+
+}
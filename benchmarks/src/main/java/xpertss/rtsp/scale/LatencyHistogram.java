@@ -0,0 +1,84 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.scale;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies with roughly 6% precision, recording
+ * values from one microsecond up to about an hour. Values are bucketed by
+ * power of two with sixteen linear sub buckets each.
+ */
+final class LatencyHistogram {
+
+   private static final int SUB_BITS = 4;
+   private static final int SUB_COUNT = 1 << SUB_BITS;
+   private static final int BUCKETS = 32;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * SUB_COUNT);
+
+   /**
+    * Record a latency measured in nanoseconds. Negative values are recorded
+    * as zero.
+    */
+   void record(long nanos)
+   {
+      counts.incrementAndGet(indexOf(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+   }
+
+   /**
+    * Returns the total number of recorded values.
+    */
+   long count()
+   {
+      long count = 0;
+      for(int i = 0; i < counts.length(); i++) count += counts.get(i);
+      return count;
+   }
+
+   /**
+    * Returns the value, in microseconds, below which the given percentage of
+    * the recorded values fall, or zero if nothing has been recorded.
+    */
+   long percentile(double percent)
+   {
+      long total = count();
+      if(total == 0) return 0;
+      long target = (long) Math.ceil(total * percent / 100);
+      long seen = 0;
+      for(int i = 0; i < counts.length(); i++) {
+         seen += counts.get(i);
+         if(seen >= Math.max(1, target)) return upperBound(i);
+      }
+      return upperBound(counts.length() - 1);
+   }
+
+   /**
+    * Discard all recorded values.
+    */
+   void reset()
+   {
+      for(int i = 0; i < counts.length(); i++) counts.set(i, 0);
+   }
+
+
+   private static int indexOf(long micros)
+   {
+      if(micros < SUB_COUNT) return (int) micros;
+      int bucket = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS + 1;
+      int sub = (int) (micros >>> (bucket - 1)) & (SUB_COUNT - 1);
+      return Math.min(bucket * SUB_COUNT + sub, BUCKETS * SUB_COUNT - 1);
+   }
+
+   private static long upperBound(int index)
+   {
+      int bucket = index / SUB_COUNT, sub = index % SUB_COUNT;
+      if(bucket == 0) return sub;
+      return ((long) (SUB_COUNT + sub) << (bucket - 1)) - 1 + (1L << (bucket - 1));
+   }
+
+}
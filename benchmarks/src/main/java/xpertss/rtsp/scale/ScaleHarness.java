@@ -0,0 +1,375 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.scale;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import xpertss.media.ChannelSink;
+import xpertss.media.MediaChannel;
+import xpertss.media.MediaConsumer;
+import xpertss.nio.NioAction;
+import xpertss.nio.NioService;
+import xpertss.nio.Selectable;
+import xpertss.rtsp.RtspClient;
+import xpertss.rtsp.RtspPlayer;
+import xpertss.rtsp.RtspState;
+import xpertss.rtsp.server.LoopbackServer;
+import xpertss.sdp.MediaDescription;
+import xpertss.sdp.SessionDescription;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A soak and scale harness which ramps up a number of concurrent players
+ * against a {@link LoopbackServer}, holds them in playback and reports what
+ * each session costs. It reports:
+ * <ul>
+ *    <li>retained heap per session, measured after full collections before
+ *        the ramp and once every session is playing</li>
+ *    <li>reactor loop latency, the time an action posted to a reactor waits
+ *        before it is executed, sampled every millisecond</li>
+ *    <li>packet delivery latency, from generation on the server to the
+ *        channel sink</li>
+ *    <li>garbage collection pauses during the measurement window</li>
+ * </ul>
+ * The process exits with status 1 if any result exceeds its budget, so the
+ * harness can gate a build. Everything is configured with system properties:
+ * <pre>
+ *    scale.sessions            number of players (10000)
+ *    scale.rampRate            players started per second (1000)
+ *    scale.duration            measurement window in seconds (30)
+ *    scale.bitrate             bits per second sent to each player (64000)
+ *    scale.packetSize          RTP payload size (188)
+ *    scale.reactors            client reactors (available processors)
+ *    scale.server              fork, inprocess or an rtsp:// uri (fork)
+ *    scale.budget.heapPerSession   bytes (16384)
+ *    scale.budget.loopP99          microseconds (10000)
+ *    scale.budget.deliveryP99      microseconds (50000)
+ *    scale.budget.gcPause          microseconds (200000)
+ * </pre>
+ * By default the server runs in a child JVM so that neither its heap nor its
+ * collections are attributed to the players. Delivery latency relies on
+ * {@link System#nanoTime()} being consistent across processes on one host,
+ * which holds on Linux; use the inprocess server where it does not.
+ */
+public class ScaleHarness {
+
+   private final LatencyHistogram loop = new LatencyHistogram();
+   private final LatencyHistogram delivery = new LatencyHistogram();
+   private final AtomicLong failures = new AtomicLong();
+   private final AtomicLong packets = new AtomicLong();
+   private final List<Long> pauses = new ArrayList<>();
+   private volatile boolean measuring;
+
+   private final int sessions = Integer.getInteger("scale.sessions", 10000);
+   private final int rampRate = Integer.getInteger("scale.rampRate", 1000);
+   private final int duration = Integer.getInteger("scale.duration", 30);
+   private final int bitrate = Integer.getInteger("scale.bitrate", 64000);
+   private final int packetSize = Integer.getInteger("scale.packetSize", 188);
+   private final int reactors = Integer.getInteger("scale.reactors", Runtime.getRuntime().availableProcessors());
+   private final String serverMode = System.getProperty("scale.server", "fork");
+
+
+   public static void main(String[] args) throws Exception
+   {
+      System.exit(new ScaleHarness().run() ? 0 : 1);
+   }
+
+
+   private boolean run() throws Exception
+   {
+      Process child = null;
+      LoopbackServer server = null;
+      URI uri;
+      if("inprocess".equals(serverMode)) {
+         server = new LoopbackServer(Math.max(1, reactors / 2));
+         server.setBitrate(bitrate);
+         server.setPacketSize(packetSize);
+         uri = server.start();
+      } else if("fork".equals(serverMode)) {
+         child = fork();
+         uri = awaitUri(child);
+      } else {
+         uri = URI.create(serverMode);
+      }
+      log("server %s", uri);
+
+      listenForCollections();
+      long baseline = settledHeap();
+
+      RtspClient client = new RtspClient(reactors);
+      List<RtspPlayer> players = new ArrayList<>(sessions);
+      long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rampRate);
+      long next = System.nanoTime();
+      for(int i = 0; i < sessions; i++) {
+         RtspPlayer player = new RtspPlayer(client, new Consumer());
+         player.setReadTimeout(30000);
+         player.start(uri);
+         players.add(player);
+         next += interval;
+         long delay = next - System.nanoTime();
+         if(delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+      }
+      int active = awaitActive(players, TimeUnit.SECONDS.toNanos(Math.max(30, sessions / Math.max(1, rampRate) * 2)));
+      log("%d of %d sessions active, %d failed", active, sessions, failures.get());
+
+      long loaded = settledHeap();
+      long heapPerSession = (loaded - baseline) / Math.max(1, active);
+
+      Sampler sampler = new Sampler(client.getServices());
+      sampler.start();
+      loop.reset();
+      delivery.reset();
+      packets.set(0);
+      measuring = true;
+      TimeUnit.SECONDS.sleep(duration);
+      measuring = false;
+      sampler.interrupt();
+
+      for(RtspPlayer player : players) player.stop();
+      client.await(10, TimeUnit.SECONDS);
+      if(server != null) server.close();
+      if(child != null) child.destroy();
+
+      long maxPause;
+      synchronized(pauses) {
+         maxPause = pauses.stream().mapToLong(Long::longValue).max().orElse(0);
+      }
+      log("heap per session       %,d bytes", heapPerSession);
+      log("reactor loop latency   p50=%dus p99=%dus p99.9=%dus", loop.percentile(50), loop.percentile(99), loop.percentile(99.9));
+      log("delivery latency       p50=%dus p99=%dus p99.9=%dus (%,d packets)", delivery.percentile(50),
+            delivery.percentile(99), delivery.percentile(99.9), packets.get());
+      synchronized(pauses) {
+         log("gc pauses              count=%d max=%dus", pauses.size(), maxPause);
+      }
+
+      boolean passed = active == sessions;
+      if(!passed) log("FAIL %d sessions did not become active", sessions - active);
+      passed &= check("heap per session", heapPerSession, Long.getLong("scale.budget.heapPerSession", 16384));
+      passed &= check("reactor loop p99", loop.percentile(99), Long.getLong("scale.budget.loopP99", 10000));
+      passed &= check("delivery p99", delivery.percentile(99), Long.getLong("scale.budget.deliveryP99", 50000));
+      passed &= check("gc pause", maxPause, Long.getLong("scale.budget.gcPause", 200000));
+      log(passed ? "PASS" : "FAIL");
+      return passed;
+   }
+
+
+   private boolean check(String name, long value, long budget)
+   {
+      if(value <= budget) return true;
+      log("FAIL %s %,d exceeds budget of %,d", name, value, budget);
+      return false;
+   }
+
+   private int awaitActive(List<RtspPlayer> players, long timeout) throws InterruptedException
+   {
+      long deadline = System.nanoTime() + timeout;
+      int active;
+      do {
+         TimeUnit.MILLISECONDS.sleep(250);
+         active = 0;
+         for(RtspPlayer player : players) if(player.getState() == RtspState.Active) active++;
+      } while(active + failures.get() < players.size() && System.nanoTime() < deadline);
+      return active;
+   }
+
+   private static long settledHeap() throws InterruptedException
+   {
+      long used = Long.MAX_VALUE;
+      for(int i = 0; i < 5; i++) {
+         System.gc();
+         TimeUnit.MILLISECONDS.sleep(200);
+         used = Math.min(used, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+      }
+      return used;
+   }
+
+   private void listenForCollections()
+   {
+      NotificationListener listener = (Notification notification, Object handback) -> {
+         if(measuring && GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            GarbageCollectionNotificationInfo info =
+               GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            synchronized(pauses) {
+               pauses.add(TimeUnit.MILLISECONDS.toMicros(info.getGcInfo().getDuration()));
+            }
+         }
+      };
+      for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+         if(bean instanceof NotificationEmitter) {
+            ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+         }
+      }
+   }
+
+   private Process fork() throws IOException
+   {
+      int port;
+      try(ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+         port = socket.getLocalPort();
+      }
+      String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                                   "-Dloopback.packetSize=" + packetSize,
+                                                   LoopbackServer.class.getName(),
+                                                   Integer.toString(port), Integer.toString(bitrate));
+      builder.redirectErrorStream(true);
+      return builder.start();
+   }
+
+   private static URI awaitUri(Process child) throws IOException
+   {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream()));
+      String line;
+      while((line = reader.readLine()) != null) {
+         if(line.startsWith("Serving ")) {
+            Thread drain = new Thread(() -> {
+               try {
+                  while(reader.readLine() != null) ;
+               } catch(IOException e) {
+                  // child exited
+               }
+            }, "LoopbackServerOutput");
+            drain.setDaemon(true);
+            drain.start();
+            return URI.create(line.substring(8).trim());
+         }
+      }
+      throw new IOException("loopback server failed to start");
+   }
+
+   private static void log(String format, Object ... args)
+   {
+      System.out.println(String.format(format, args));
+   }
+
+
+
+   /**
+    * Selects every media stream and measures the delivery latency of each
+    * packet from the generation time the loopback server embeds in it.
+    */
+   private class Consumer implements MediaConsumer {
+
+      private final ChannelSink sink = new ChannelSink() {
+         @Override
+         public void consume(ByteBuffer data)
+         {
+            // 12 byte RTP header followed by a one byte NAL header
+            if(measuring && data.remaining() >= 21) {
+               delivery.record(System.nanoTime() - data.getLong(data.position() + 13));
+               packets.incrementAndGet();
+            }
+         }
+      };
+
+      @Override
+      public MediaDescription[] select(SessionDescription sdp)
+      {
+         return sdp.getMediaDescriptions();
+      }
+
+      @Override
+      public void createChannel(MediaChannel channel)
+      {
+         channel.setDataSink(sink);
+      }
+
+      @Override
+      public void destroyChannels()
+      {
+      }
+
+      @Override
+      public void consume(int channelId, ByteBuffer data)
+      {
+      }
+
+      @Override
+      public void handle(Throwable t)
+      {
+         if(failures.incrementAndGet() <= 10) t.printStackTrace();
+      }
+   }
+
+
+   /**
+    * Posts an action to each reactor every millisecond and records how long
+    * it waited before being executed.
+    */
+   private class Sampler extends Thread {
+
+      private final List<NioService> services;
+
+      private Sampler(List<NioService> services)
+      {
+         super("ReactorLatencySampler");
+         this.services = services;
+         setDaemon(true);
+      }
+
+      @Override
+      public void run()
+      {
+         try {
+            while(!isInterrupted()) {
+               for(NioService service : services) service.execute(new Probe(System.nanoTime()));
+               TimeUnit.MILLISECONDS.sleep(1);
+            }
+         } catch(InterruptedException e) {
+            // measurement complete
+         }
+      }
+   }
+
+   private class Probe implements NioAction, Selectable {
+
+      private final long posted;
+
+      private Probe(long posted)
+      {
+         this.posted = posted;
+      }
+
+      public void execute(Selector selector)
+      {
+         if(measuring) loop.record(System.nanoTime() - posted);
+      }
+
+      public Selectable getSelectable()
+      {
+         return this;
+      }
+
+      public SelectableChannel getChannel()
+      {
+         return null;
+      }
+
+      public void shutdown(Exception ex)
+      {
+      }
+   }
+
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.server;
+
+import xpertss.io.NIOUtils;
+import xpertss.nio.DataHandler;
+import xpertss.nio.NioAction;
+import xpertss.nio.NioService;
+import xpertss.nio.NioTimeout;
+import xpertss.nio.Selectable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A single client connection to the loopback server. Requests are answered
+ * as they arrive and while playing the connection is paced by a timer that
+ * fires every tick, writing as many frames as the configured bitrate allows.
+ * <p/>
+ * Frames are written into an outbound buffer which is flushed to the socket
+ * without blocking. If the client falls behind far enough to fill the buffer
+ * frames are skipped, as a live camera would.
+ */
+final class LoopbackConnection implements DataHandler {
+
+   private static final Pattern INTERLEAVED = Pattern.compile("interleaved=(\\d+)-(\\d+)");
+   private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+   private final ByteBuffer in = ByteBuffer.allocate(8192);
+   private final ByteBuffer out = ByteBuffer.allocate(262144);
+   private final LoopbackServer server;
+   private final SocketChannel channel;
+   private final NioService service;
+   private final String session;
+
+   private int[] channels = new int[0];
+   private PacketSource source;
+   private Selector selector;
+   private NioTimeout timer;
+   private long lastTick;
+   private double credit;
+   private boolean closing;
+
+   LoopbackConnection(LoopbackServer server, NioService service, SocketChannel channel)
+   {
+      this.server = server;
+      this.service = service;
+      this.channel = channel;
+      this.session = Long.toHexString(System.nanoTime() ^ channel.hashCode());
+   }
+
+
+   void open()
+   {
+      service.execute(new RegisterAction(SelectionKey.OP_READ));
+   }
+
+
+   @Override
+   public void handleRead() throws IOException
+   {
+      int read = channel.read(in);
+      if(read < 0) throw new EOFException("client closed connection");
+      in.flip();
+      try {
+         while(process()) ;
+      } finally {
+         in.compact();
+      }
+      if(!in.hasRemaining()) throw new ProtocolException("request too large");
+      flush();
+   }
+
+   @Override
+   public void handleWrite() throws IOException
+   {
+      flush();
+   }
+
+   @Override
+   public SelectableChannel getChannel()
+   {
+      return channel;
+   }
+
+   @Override
+   public void shutdown(Exception ex)
+   {
+      if(channel.isOpen()) {
+         NIOUtils.close(channel);
+         if(timer != null) timer.cancel();
+         server.closed(this);
+         service.detach();
+      }
+   }
+
+
+
+   /**
+    * Process a single complete request from the inbound buffer returning
+    * false if one is not yet available.
+    */
+   private boolean process() throws IOException
+   {
+      int end = find(in);
+      if(end < 0) return false;
+      byte[] head = new byte[end - in.position()];
+      in.get(head);
+      String[] lines = new String(head, US_ASCII).split("\r\n");
+      String[] request = lines[0].split(" ");
+      if(request.length != 3) throw new ProtocolException("malformed request line");
+
+      String cseq = header(lines, "CSeq");
+      int length = Integer.parseInt(header(lines, "Content-Length", "0"));
+      if(in.remaining() < length) {
+         in.position(in.position() - head.length);
+         return false;
+      }
+      in.position(in.position() + length);
+
+      switch(request[0]) {
+         case "OPTIONS":
+            respond(200, "OK", cseq, "Public: OPTIONS, DESCRIBE, SETUP, PLAY, PAUSE, TEARDOWN, GET_PARAMETER\r\n", null);
+            break;
+         case "DESCRIBE":
+            byte[] sdp = server.getDescription().getBytes(UTF_8);
+            respond(200, "OK", cseq, "Content-Base: " + request[1] + "/\r\n" +
+                                       "Content-Type: application/sdp\r\n" +
+                                       "Content-Length: " + sdp.length + "\r\n", sdp);
+            break;
+         case "SETUP":
+            Matcher matcher = INTERLEAVED.matcher(header(lines, "Transport", ""));
+            if(matcher.find()) {
+               channels = Arrays.copyOf(channels, channels.length + 2);
+               channels[channels.length - 2] = Integer.parseInt(matcher.group(1));
+               channels[channels.length - 1] = Integer.parseInt(matcher.group(2));
+               respond(200, "OK", cseq, "Transport: RTP/AVP/TCP;unicast;" + matcher.group() + "\r\n" +
+                                          "Session: " + session + ";timeout=60\r\n", null);
+            } else {
+               respond(461, "Unsupported Transport", cseq, null, null);
+            }
+            break;
+         case "PLAY":
+            respond(200, "OK", cseq, "Session: " + session + "\r\nRange: npt=0.000-\r\n", null);
+            play();
+            break;
+         case "PAUSE":
+            respond(200, "OK", cseq, "Session: " + session + "\r\n", null);
+            pause();
+            break;
+         case "TEARDOWN":
+            respond(200, "OK", cseq, "Session: " + session + "\r\n", null);
+            pause();
+            closing = true;
+            break;
+         case "GET_PARAMETER":
+            respond(200, "OK", cseq, "Session: " + session + "\r\n", null);
+            break;
+         default:
+            respond(501, "Not Implemented", cseq, null, null);
+      }
+      return true;
+   }
+
+   private void respond(int code, String reason, String cseq, String headers, byte[] body)
+      throws IOException
+   {
+      StringBuilder buf = new StringBuilder(256);
+      buf.append("RTSP/1.0 ").append(code).append(' ').append(reason).append("\r\n");
+      if(cseq != null) buf.append("CSeq: ").append(cseq).append("\r\n");
+      buf.append("Server: LoopbackServer\r\n");
+      if(headers != null) buf.append(headers);
+      buf.append("\r\n");
+      byte[] head = buf.toString().getBytes(US_ASCII);
+      int length = head.length + ((body != null) ? body.length : 0);
+      if(out.remaining() < length) throw new IOException("client is not reading");
+      out.put(head);
+      if(body != null) out.put(body);
+   }
+
+
+   private void play()
+   {
+      if(source == null) source = server.createSource();
+      if(timer == null) {
+         lastTick = System.nanoTime();
+         credit = 0;
+         timer = service.schedule(new PaceAction(), TICK, TimeUnit.NANOSECONDS);
+      }
+   }
+
+   private void pause()
+   {
+      if(timer != null) {
+         timer.cancel();
+         timer = null;
+      }
+   }
+
+   private void pace() throws IOException
+   {
+      long now = System.nanoTime();
+      double rate = server.getBitrate() / 8.0 / TimeUnit.SECONDS.toNanos(1);
+      credit = Math.min(credit + (now - lastTick) * rate, rate * TimeUnit.SECONDS.toNanos(1));
+      lastTick = now;
+      while(credit > 0 && channels.length > 0) {
+         int written = source.next(out, channels);
+         if(written == 0) {
+            // the client is not keeping up
+            server.stalled();
+            break;
+         }
+         server.sent(written);
+         credit -= written;
+      }
+      flush();
+      timer = service.schedule(new PaceAction(), TICK, TimeUnit.NANOSECONDS);
+   }
+
+   private void flush() throws IOException
+   {
+      out.flip();
+      try {
+         channel.write(out);
+      } finally {
+         out.compact();
+      }
+      boolean pending = out.position() > 0;
+      if(!pending && closing) {
+         shutdown(null);
+      } else {
+         SelectionKey key = channel.keyFor(selector);
+         if(key != null && key.isValid()) {
+            int ops = SelectionKey.OP_READ | (pending ? SelectionKey.OP_WRITE : 0);
+            if(key.interestOps() != ops) key.interestOps(ops);
+         }
+      }
+   }
+
+   private static int find(ByteBuffer buf)
+   {
+      for(int i = buf.position(); i + 3 < buf.limit(); i++) {
+         if(buf.get(i) == '\r' && buf.get(i + 1) == '\n' && buf.get(i + 2) == '\r' && buf.get(i + 3) == '\n')
+            return i + 4;
+      }
+      return -1;
+   }
+
+   private static String header(String[] lines, String name)
+   {
+      return header(lines, name, null);
+   }
+
+   private static String header(String[] lines, String name, String def)
+   {
+      for(int i = 1; i < lines.length; i++) {
+         int colon = lines[i].indexOf(':');
+         if(colon > 0 && lines[i].substring(0, colon).trim().equalsIgnoreCase(name)) {
+            return lines[i].substring(colon + 1).trim();
+         }
+      }
+      return def;
+   }
+
+
+
+   private class PaceAction implements NioAction {
+
+      public void execute(Selector selector) throws IOException
+      {
+         if(timer != null && channel.isOpen()) pace();
+      }
+
+      public Selectable getSelectable()
+      {
+         return LoopbackConnection.this;
+      }
+   }
+
+   private class RegisterAction implements NioAction {
+
+      private final int ops;
+
+      private RegisterAction(int ops)
+      {
+         this.ops = ops;
+      }
+
+      public void execute(Selector selector) throws IOException
+      {
+         if(channel.isOpen()) {
+            LoopbackConnection.this.selector = selector;
+            channel.register(selector, ops, LoopbackConnection.this);
+         }
+      }
+
+      public Selectable getSelectable()
+      {
+         return LoopbackConnection.this;
+      }
+   }
+
+}
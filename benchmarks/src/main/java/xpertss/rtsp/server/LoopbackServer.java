@@ -0,0 +1,338 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.server;
+
+import xpertss.io.NIOUtils;
+import xpertss.lang.Numbers;
+import xpertss.lang.Objects;
+import xpertss.nio.AcceptHandler;
+import xpertss.nio.NioAction;
+import xpertss.nio.NioProvider;
+import xpertss.nio.NioReactorGroup;
+import xpertss.nio.NioService;
+import xpertss.nio.Selectable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lightweight RTSP server stand in bound to the loopback interface, intended
+ * for load and latency testing of players without a real camera.
+ * <p/>
+ * It answers OPTIONS, DESCRIBE, SETUP, PLAY, PAUSE, TEARDOWN and GET_PARAMETER
+ * requests, serving the configured session description, and streams RTP
+ * interleaved on the control connection at the configured bitrate. Media is
+ * either synthetic or replayed from a capture of an interleaved stream. UDP
+ * transports are rejected.
+ * <p/>
+ * <pre>
+ *    LoopbackServer server = new LoopbackServer(2);
+ *    server.setBitrate(4000000);
+ *    URI uri = server.start();
+ *    ...
+ *    player.start(uri);
+ *    ...
+ *    server.close();
+ * </pre>
+ */
+public class LoopbackServer implements AcceptHandler {
+
+   /**
+    * A single H.264 video track, which is what the synthetic source generates.
+    */
+   public static final String DEFAULT_DESCRIPTION =
+         "v=0\r\n" +
+         "o=- 0 0 IN IP4 127.0.0.1\r\n" +
+         "s=Loopback\r\n" +
+         "c=IN IP4 0.0.0.0\r\n" +
+         "t=0 0\r\n" +
+         "a=control:*\r\n" +
+         "m=video 0 RTP/AVP 96\r\n" +
+         "a=rtpmap:96 H264/90000\r\n" +
+         "a=fmtp:96 packetization-mode=1;sprop-parameter-sets=Z0IAH5WoFAFuQA==,aM48gA==\r\n" +
+         "a=control:trackID=1\r\n";
+
+
+   private final AtomicInteger connections = new AtomicInteger();
+   private final LongAdder bytesSent = new LongAdder();
+   private final LongAdder packetsSent = new LongAdder();
+   private final LongAdder stalls = new LongAdder();
+   private final NioReactorGroup reactors;
+
+   private volatile String description = DEFAULT_DESCRIPTION;
+   private volatile ReplaySource.Capture capture;
+   private volatile int bitrate = 2000000;
+   private volatile int packetSize = 1400;
+   private ServerSocketChannel server;
+   private URI uri;
+
+
+   /**
+    * Create a server whose connections are distributed across the given
+    * number of reactors.
+    */
+   public LoopbackServer(int reactors)
+   {
+      this.reactors = new NioReactorGroup(new LoopbackProvider(), reactors);
+   }
+
+
+
+   /**
+    * Set the session description returned in response to DESCRIBE. Each
+    * media description should have a control attribute.
+    */
+   public void setDescription(String description)
+   {
+      this.description = Objects.notNull(description, "description");
+   }
+
+   public String getDescription()
+   {
+      return description;
+   }
+
+
+   /**
+    * Set the rate, in bits per second, at which each playing connection is
+    * sent media. Defaults to 2Mbps.
+    */
+   public void setBitrate(int bitrate)
+   {
+      this.bitrate = Numbers.gt(0, bitrate, "bitrate must be positive");
+   }
+
+   public int getBitrate()
+   {
+      return bitrate;
+   }
+
+
+   /**
+    * Set the size of the RTP payload of synthetic packets. Defaults to 1400.
+    */
+   public void setPacketSize(int packetSize)
+   {
+      this.packetSize = Numbers.within(1, 65523, packetSize, "packetSize out of range");
+   }
+
+   public int getPacketSize()
+   {
+      return packetSize;
+   }
+
+
+   /**
+    * Replay the given capture of an interleaved stream rather than generating
+    * synthetic packets. Passing {@code null} reverts to synthetic packets.
+    *
+    * @throws IOException if the file cannot be read or is not a capture
+    */
+   public void setReplay(Path capture) throws IOException
+   {
+      this.capture = (capture == null) ? null : new ReplaySource.Capture(capture);
+   }
+
+
+
+
+   /**
+    * Bind the server to an ephemeral port on the loopback interface and begin
+    * accepting connections. Returns the URI players should be started with.
+    */
+   public URI start() throws IOException
+   {
+      return start(0);
+   }
+
+   /**
+    * Bind the server to the given port on the loopback interface and begin
+    * accepting connections. Returns the URI players should be started with.
+    */
+   public synchronized URI start(int port) throws IOException
+   {
+      if(server != null) throw new IllegalStateException("server already started");
+      server = ServerSocketChannel.open();
+      server.configureBlocking(false);
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+      InetSocketAddress address = (InetSocketAddress) server.getLocalAddress();
+      uri = URI.create("rtsp://" + address.getAddress().getHostAddress() + ":" + address.getPort() + "/loopback");
+      reactors.next().execute(new AcceptAction());
+      return uri;
+   }
+
+   /**
+    * Returns the URI players should be started with or {@code null} if the
+    * server has not been started.
+    */
+   public synchronized URI getUri()
+   {
+      return uri;
+   }
+
+   /**
+    * Stop accepting connections. Existing connections are closed by the
+    * players, or by the server when the process exits.
+    */
+   public synchronized void close()
+   {
+      NIOUtils.close(server);
+   }
+
+
+
+
+   /**
+    * Returns the number of currently open connections.
+    */
+   public int getConnections()
+   {
+      return connections.get();
+   }
+
+   /**
+    * Returns the total number of media bytes written across all connections.
+    */
+   public long getBytesSent()
+   {
+      return bytesSent.sum();
+   }
+
+   /**
+    * Returns the total number of media packets written across all connections.
+    */
+   public long getPacketsSent()
+   {
+      return packetsSent.sum();
+   }
+
+   /**
+    * Returns the number of times a connection could not be sent the media it
+    * was due because its client was not reading fast enough.
+    */
+   public long getStalls()
+   {
+      return stalls.sum();
+   }
+
+
+
+
+   @Override
+   public void handleAccept() throws IOException
+   {
+      SocketChannel channel;
+      while((channel = server.accept()) != null) {
+         channel.configureBlocking(false);
+         channel.socket().setTcpNoDelay(true);
+         connections.incrementAndGet();
+         new LoopbackConnection(this, reactors.next(), channel).open();
+      }
+   }
+
+   @Override
+   public SelectableChannel getChannel()
+   {
+      return server;
+   }
+
+   @Override
+   public void shutdown(Exception ex)
+   {
+      NIOUtils.close(server);
+   }
+
+
+
+
+   PacketSource createSource()
+   {
+      ReplaySource.Capture capture = this.capture;
+      return (capture == null) ? new SyntheticSource(packetSize) : new ReplaySource(capture);
+   }
+
+   void sent(int bytes)
+   {
+      bytesSent.add(bytes);
+      packetsSent.increment();
+   }
+
+   void stalled()
+   {
+      stalls.increment();
+   }
+
+   void closed(LoopbackConnection connection)
+   {
+      connections.decrementAndGet();
+   }
+
+
+
+
+   /**
+    * Run a server from the command line until the process is killed.
+    * <p/>
+    * Usage: LoopbackServer [port] [bitrate] [capture]
+    * <p/>
+    * The synthetic packet size may be set with the loopback.packetSize system
+    * property.
+    */
+   public static void main(String[] args) throws Exception
+   {
+      LoopbackServer server = new LoopbackServer(Runtime.getRuntime().availableProcessors());
+      server.setPacketSize(Integer.getInteger("loopback.packetSize", server.getPacketSize()));
+      if(args.length > 1) server.setBitrate(Integer.parseInt(args[1]));
+      if(args.length > 2) server.setReplay(java.nio.file.Paths.get(args[2]));
+      System.out.println("Serving " + server.start((args.length > 0) ? Integer.parseInt(args[0]) : 8554));
+      while(true) {
+         Thread.sleep(5000);
+         System.out.printf("connections=%d packets=%d bytes=%d stalls=%d%n", server.getConnections(),
+                              server.getPacketsSent(), server.getBytesSent(), server.getStalls());
+      }
+   }
+
+
+
+   private class AcceptAction implements NioAction {
+
+      public void execute(Selector selector) throws IOException
+      {
+         server.register(selector, SelectionKey.OP_ACCEPT, LoopbackServer.this);
+      }
+
+      public Selectable getSelectable()
+      {
+         return LoopbackServer.this;
+      }
+   }
+
+   private static class LoopbackProvider implements NioProvider {
+
+      public Thread newThread(Runnable r)
+      {
+         Thread thread = new Thread(r, "LoopbackServer");
+         thread.setDaemon(true);
+         return thread;
+      }
+
+      public void serviceException(Exception error)
+      {
+         error.printStackTrace();
+      }
+   }
+
+}
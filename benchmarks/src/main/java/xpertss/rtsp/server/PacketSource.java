@@ -0,0 +1,25 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A source of interleaved RTP frames for a single playing connection.
+ */
+interface PacketSource {
+
+   /**
+    * Write the next complete interleaved frame, including its four byte
+    * header, to the given buffer. The channels are the interleaved RTP and
+    * RTCP channel identifiers of each track set up by the client, in setup
+    * order. Returns the number of bytes
+    * written or zero if the frame does not fit in the buffer, in which case
+    * the frame is skipped.
+    */
+   public int next(ByteBuffer dst, int[] channels);
+
+}
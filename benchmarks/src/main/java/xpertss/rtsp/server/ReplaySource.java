@@ -0,0 +1,77 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Replays a captured stream of interleaved frames in a loop. The capture is
+ * the raw byte stream received from a server after PLAY, that is a sequence
+ * of '$', channel, 16 bit length and packet. Channel n of the capture is sent
+ * on the n'th channel the client set up.
+ */
+final class ReplaySource implements PacketSource {
+
+   private final Capture capture;
+   private int frame;
+
+   ReplaySource(Capture capture)
+   {
+      this.capture = capture;
+   }
+
+   @Override
+   public int next(ByteBuffer dst, int[] channels)
+   {
+      byte[] data = capture.data;
+      for(int i = 0; i < capture.offsets.length; i++) {
+         int offset = capture.offsets[frame];
+         frame = (frame + 1) % capture.offsets.length;
+         int channel = data[offset + 1] & 0xff;
+         // frames on channels the client did not set up are skipped
+         if(channel < channels.length) {
+            int length = ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+            if(dst.remaining() < length + 4) return 0;
+            dst.put((byte) '$').put((byte) channels[channel]).put(data, offset + 2, length + 2);
+            return length + 4;
+         }
+      }
+      return 0;
+   }
+
+
+   /**
+    * An indexed, in memory capture shared by every connection replaying it.
+    */
+   static final class Capture {
+
+      private final byte[] data;
+      private final int[] offsets;
+
+      Capture(Path file) throws IOException
+      {
+         data = Files.readAllBytes(file);
+         int[] offsets = new int[1024];
+         int count = 0;
+         for(int offset = 0; offset + 4 <= data.length; ) {
+            if(data[offset] != '$') throw new IOException("not an interleaved capture at offset " + offset);
+            int length = ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+            if(offset + 4 + length > data.length) break;
+            if(count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+            offsets[count++] = offset;
+            offset += 4 + length;
+         }
+         if(count == 0) throw new IOException("capture contains no frames");
+         this.offsets = Arrays.copyOf(offsets, count);
+      }
+
+   }
+
+}
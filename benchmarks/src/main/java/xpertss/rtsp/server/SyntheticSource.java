@@ -0,0 +1,57 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Generates RTP packets each carrying a single H.264 NAL unit of zeros. Every
+ * track the client has set up receives packets in turn. The timestamp follows
+ * the wall clock at 90kHz, every packet completes a picture and every sixtieth
+ * picture on a track is an IDR.
+ * <p/>
+ * When the payload is large enough the eight bytes following the NAL header
+ * hold the {@link System#nanoTime()} at which the packet was generated, from
+ * which a client on the same host may measure delivery latency.
+ */
+final class SyntheticSource implements PacketSource {
+
+   private final long start = System.nanoTime();
+   private final int payloadSize;
+   private int[] sequence = new int[0];
+   private int track;
+
+   SyntheticSource(int payloadSize)
+   {
+      this.payloadSize = payloadSize;
+   }
+
+   @Override
+   public int next(ByteBuffer dst, int[] channels)
+   {
+      int tracks = channels.length / 2;
+      if(tracks == 0) return 0;
+      if(sequence.length != tracks) sequence = new int[tracks];
+      int index = track++ % tracks;
+      int length = 12 + payloadSize;
+      if(dst.remaining() < length + 4) return 0;
+
+      int seq = sequence[index]++;
+      long timestamp = (System.nanoTime() - start) * 9 / 100000;
+      dst.put((byte) '$').put((byte) channels[index * 2]).putShort((short) length);
+      dst.put((byte) 0x80).put((byte) (0x80 | 96)).putShort((short) seq);
+      dst.putInt((int) timestamp).putInt(0x10000 + index);
+      dst.put((byte) ((seq % 60 == 0) ? 0x65 : 0x41));
+      int fill = payloadSize - 1;
+      if(fill >= 8) {
+         dst.putLong(System.nanoTime());
+         fill -= 8;
+      }
+      for(int i = 0; i < fill; i++) dst.put((byte) 0);
+      return length + 4;
+   }
+
+}
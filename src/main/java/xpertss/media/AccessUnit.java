@@ -0,0 +1,117 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import xpertss.nio.BufferPool;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * An access unit is a complete coded picture emitted by a {@link Depacketizer}.
+ * It is a composite of NAL units, each held without start code or length prefix
+ * in its own buffer borrowed from a {@link BufferPool}.
+ * <p/>
+ * The recipient owns the access unit and must call {@link #release()} once it
+ * is done with it so that the underlying buffers may be reused. Neither the
+ * access unit nor any of its buffers may be used after it has been released.
+ */
+public final class AccessUnit {
+
+   private static final byte[] START_CODE = { 0, 0, 0, 1 };
+
+   private final BufferPool pool;
+   private final long timestamp;
+   private final boolean keyframe;
+   private ByteBuffer[] nals;
+
+   AccessUnit(BufferPool pool, ByteBuffer[] nals, long timestamp, boolean keyframe)
+   {
+      this.pool = pool;
+      this.nals = nals;
+      this.timestamp = timestamp;
+      this.keyframe = keyframe;
+   }
+
+
+   /**
+    * The RTP timestamp shared by all of the packets that made up this unit.
+    */
+   public long getTimestamp()
+   {
+      return timestamp;
+   }
+
+   /**
+    * Returns true if this unit contains an instantaneous decoder refresh
+    * (H.264) or intra random access point (H.265) picture.
+    */
+   public boolean isKeyframe()
+   {
+      return keyframe;
+   }
+
+
+   /**
+    * Returns the number of NAL units in this access unit.
+    */
+   public int getCount()
+   {
+      return nals.length;
+   }
+
+   /**
+    * Returns the NAL unit at the given index. The returned buffer is positioned
+    * at the NAL header and its limit marks the end of the NAL unit.
+    */
+   public ByteBuffer get(int index)
+   {
+      return nals[index];
+   }
+
+   /**
+    * Returns the total length of the NAL units in this access unit excluding
+    * any start codes.
+    */
+   public int length()
+   {
+      int length = 0;
+      for(ByteBuffer nal : nals) length += nal.remaining();
+      return length;
+   }
+
+
+   /**
+    * Write this access unit to the given buffer in Annex B byte stream format,
+    * that is with a four byte start code preceding each NAL unit. Returns the
+    * number of bytes written.
+    *
+    * @throws BufferOverflowException if there is insufficient space remaining
+    *          in the destination buffer
+    */
+   public int writeTo(ByteBuffer dst)
+   {
+      int length = length() + nals.length * START_CODE.length;
+      if(dst.remaining() < length) throw new BufferOverflowException();
+      for(ByteBuffer nal : nals) dst.put(START_CODE).put(nal.duplicate());
+      return length;
+   }
+
+
+   /**
+    * Returns the buffers that make up this access unit to the pool they were
+    * borrowed from.
+    */
+   public void release()
+   {
+      ByteBuffer[] nals = this.nals;
+      if(nals != null) {
+         this.nals = null;
+         for(ByteBuffer nal : nals) pool.release(nal);
+      }
+   }
+
+}
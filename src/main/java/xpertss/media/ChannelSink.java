@@ -0,0 +1,26 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A channel sink receives the packets of a single media channel identifier.
+ * <p/>
+ * Sinks are registered on the {@link MediaChannel} passed to
+ * {@link MediaConsumer#createChannel(MediaChannel)} and are subsequently
+ * handed each packet directly, bypassing {@link MediaConsumer#consume(int, ByteBuffer)}.
+ */
+public interface ChannelSink {
+
+   /**
+    * Process a packet received on this sink's channel. The data buffer is
+    * only valid for the duration of this call. It must be copied if it needs
+    * to be retained.
+    */
+   public void consume(ByteBuffer data);
+
+}
@@ -0,0 +1,423 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import xpertss.lang.Objects;
+import xpertss.media.rtp.RtpPacket;
+import xpertss.nio.BufferPool;
+import xpertss.sdp.Attribute;
+import xpertss.sdp.MediaDescription;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A depacketizer reassembles the RTP packets of a video channel into complete
+ * {@link AccessUnit}s. It is fed the buffers delivered to
+ * {@link MediaConsumer#consume(int, ByteBuffer)} for the channel's media
+ * identifier, or may be registered as the channel's data sink directly.
+ * <p/>
+ * Each NAL unit is copied exactly once, directly from the delivered buffer into
+ * a buffer borrowed from the depacketizer's {@link BufferPool}. Fragmented NAL
+ * units are assembled in place and aggregation packets are split into their
+ * individual NAL units. An access unit is emitted when the marker bit is seen
+ * or the RTP timestamp changes. If a packet is lost the access unit it belonged
+ * to is discarded rather than delivered incomplete.
+ * <p/>
+ * Keyframes which do not carry their own parameter sets have the out of band
+ * parameter sets from the channel's fmtp attribute prepended to them.
+ * <p/>
+ * <pre>
+ *    public void createChannel(MediaChannel channel)
+ *    {
+ *       channel.setDataSink(Depacketizer.create(channel, this::decode));
+ *    }
+ * </pre>
+ * Interleaved packetization (and therefore decoding order numbers) is not
+ * supported. Depacketizers are not thread safe.
+ */
+public abstract class Depacketizer implements ChannelSink {
+
+   private final RtpPacket packet = new RtpPacket();
+   private final Consumer<AccessUnit> handler;
+   private final byte[][] parameterSets;
+   private final BufferPool pool;
+
+   private ByteBuffer[] nals = new ByteBuffer[16];
+   private int count;
+
+   private ByteBuffer fragment;
+   private long timestamp = -1;
+   private int expected = -1;
+   private boolean corrupt;
+   private boolean keyframe;
+
+   private long dropped;
+
+
+   protected Depacketizer(BufferPool pool, byte[][] parameterSets, Consumer<AccessUnit> handler)
+   {
+      this.pool = Objects.notNull(pool, "pool");
+      this.handler = Objects.notNull(handler, "handler");
+      this.parameterSets = (parameterSets != null) ? parameterSets : new byte[0][];
+   }
+
+
+   /**
+    * Create a depacketizer appropriate for the encoding identified by the given
+    * channel's rtpmap attribute, or {@code null} if the encoding is not supported.
+    * Access units are assembled in buffers borrowed from a pool private to the
+    * depacketizer.
+    */
+   public static Depacketizer create(MediaChannel channel, Consumer<AccessUnit> handler)
+   {
+      return create(channel, new BufferPool(), handler);
+   }
+
+   /**
+    * Create a depacketizer appropriate for the encoding identified by the given
+    * channel's rtpmap attribute, or {@code null} if the encoding is not supported.
+    * Access units are assembled in buffers borrowed from the given pool.
+    */
+   public static Depacketizer create(MediaChannel channel, BufferPool pool, Consumer<AccessUnit> handler)
+   {
+      MediaDescription desc = channel.getMedia();
+      String encoding = encodingOf(desc.getAttribute("rtpmap"));
+      Map<String,String> params = parseFormat(desc.getAttribute("fmtp"));
+      if("H264".equalsIgnoreCase(encoding)) {
+         return new H264Depacketizer(pool, decode(params.get("sprop-parameter-sets")), handler);
+      } else if("H265".equalsIgnoreCase(encoding)) {
+         return new H265Depacketizer(pool, decode(params.get("sprop-vps"), params.get("sprop-sps"),
+                                                   params.get("sprop-pps")), handler);
+      }
+      return null;
+   }
+
+
+
+   /**
+    * Returns a predicate which identifies the RTP packets on the given channel
+    * that carry keyframe or parameter set data, or {@code null} if the channel's
+    * encoding is not supported. The predicate is not thread safe.
+    */
+   public static Predicate<ByteBuffer> keyframes(MediaChannel channel)
+   {
+      final RtpPacket packet = new RtpPacket();
+      String encoding = encodingOf(channel.getMedia().getAttribute("rtpmap"));
+      if("H264".equalsIgnoreCase(encoding)) {
+         return data -> isWellFormed(packet, data) && H264Depacketizer.isKeyframe(packet);
+      } else if("H265".equalsIgnoreCase(encoding)) {
+         return data -> isWellFormed(packet, data) && H265Depacketizer.isKeyframe(packet);
+      }
+      return null;
+   }
+
+
+
+   /**
+    * Process the given RTP packet. The buffer's position and limit are not
+    * modified.
+    *
+    * @throws IllegalArgumentException if the buffer is not a valid RTP packet
+    */
+   @Override
+   public void consume(ByteBuffer data)
+   {
+      RtpPacket packet = this.packet.wrap(data);
+      int sequence = packet.getSequence();
+      boolean gap = expected >= 0 && sequence != expected;
+      expected = (sequence + 1) & 0xffff;
+      // Only a unit which is pending can have lost part of itself, a unit
+      // lost in its entirety is accounted for below when the next one starts
+      if(gap && (count > 0 || fragment != null)) malformed();
+
+      long ts = packet.getTimestamp();
+      if(ts != timestamp) {
+         flush();
+         timestamp = ts;
+         // the lost packets may have been the start of this unit
+         corrupt = gap;
+      }
+      if(!corrupt) {
+         depacketize(data, packet.getPayloadOffset(), packet.getPayloadLength());
+      }
+      if(packet.isMarker()) flush();
+   }
+
+   /**
+    * Discard any partially assembled access unit and forget the sequence and
+    * timestamp state, for example after a seek.
+    */
+   public void reset()
+   {
+      release();
+      corrupt = false;
+      timestamp = -1;
+      expected = -1;
+   }
+
+   /**
+    * Returns the number of access units discarded due to packet loss or
+    * malformed payloads.
+    */
+   public long getUnitsDropped()
+   {
+      return dropped;
+   }
+
+
+
+
+   /**
+    * Split the given payload into NAL units using the single, aggregate, begin
+    * and append methods.
+    */
+   protected abstract void depacketize(ByteBuffer buf, int offset, int length);
+
+   /**
+    * Returns true if the given NAL unit starts a keyframe.
+    */
+   protected abstract boolean isKeyframe(ByteBuffer nal);
+
+   /**
+    * Returns true if the given NAL unit is a parameter set.
+    */
+   protected abstract boolean isParameterSet(ByteBuffer nal);
+
+
+
+
+   /**
+    * Add a complete NAL unit found at the given offset in the buffer.
+    */
+   protected final void single(ByteBuffer buf, int offset, int length)
+   {
+      if(length <= 0) {
+         malformed();
+      } else {
+         ByteBuffer nal = pool.acquire(length);
+         copy(buf, offset, length, nal);
+         nal.flip();
+         add(nal);
+      }
+   }
+
+   /**
+    * Add each of the NAL units in an aggregation packet whose 16 bit size
+    * prefixed units begin at the given offset.
+    */
+   protected final void aggregate(ByteBuffer buf, int offset, int length)
+   {
+      int end = offset + length;
+      while(offset + 2 <= end) {
+         int size = buf.getShort(offset) & 0xffff;
+         offset += 2;
+         if(size > end - offset) {
+            malformed();
+            return;
+         }
+         single(buf, offset, size);
+         offset += size;
+      }
+   }
+
+   /**
+    * Begin a fragmented NAL unit whose reconstructed header is given by the
+    * header bytes.
+    */
+   protected final void begin(byte[] header, int headerLength)
+   {
+      if(fragment != null) {
+         malformed();
+      } else if(!corrupt) {
+         fragment = pool.acquire(8192);
+         fragment.clear();
+         fragment.put(header, 0, headerLength);
+      }
+   }
+
+   /**
+    * Append a piece of the current fragmented NAL unit, completing it if this
+    * is the last piece.
+    */
+   protected final void append(ByteBuffer buf, int offset, int length, boolean end)
+   {
+      if(fragment == null) {
+         malformed();
+      } else {
+         if(fragment.capacity() - fragment.position() < length) {
+            ByteBuffer larger = pool.acquire(Math.max(fragment.capacity() * 2, fragment.position() + length));
+            larger.clear();
+            fragment.flip();
+            larger.put(fragment);
+            pool.release(fragment);
+            fragment = larger;
+         }
+         copy(buf, offset, length, fragment);
+         if(end) {
+            fragment.flip();
+            add(fragment);
+            fragment = null;
+         }
+      }
+   }
+
+   /**
+    * Mark the current access unit as malformed, causing it to be discarded.
+    */
+   protected final void malformed()
+   {
+      release();
+      corrupt = true;
+   }
+
+
+
+
+   private void add(ByteBuffer nal)
+   {
+      if(count == nals.length) nals = Arrays.copyOf(nals, count * 2);
+      if(isKeyframe(nal)) keyframe = true;
+      nals[count++] = nal;
+   }
+
+   private void flush()
+   {
+      if(corrupt || fragment != null) {
+         dropped++;
+         release();
+      } else if(count > 0) {
+         ByteBuffer[] units = prepare();
+         Arrays.fill(nals, 0, count, null);
+         count = 0;
+         AccessUnit unit = new AccessUnit(pool, units, timestamp, keyframe);
+         keyframe = false;
+         handler.accept(unit);
+      }
+      corrupt = false;
+   }
+
+   private ByteBuffer[] prepare()
+   {
+      if(keyframe && parameterSets.length > 0) {
+         boolean inband = false;
+         for(int i = 0; i < count && !inband; i++) inband = isParameterSet(nals[i]);
+         if(!inband) {
+            ByteBuffer[] units = new ByteBuffer[parameterSets.length + count];
+            for(int i = 0; i < parameterSets.length; i++) {
+               byte[] set = parameterSets[i];
+               units[i] = (ByteBuffer) pool.acquire(set.length).put(set).flip();
+            }
+            System.arraycopy(nals, 0, units, parameterSets.length, count);
+            return units;
+         }
+      }
+      return Arrays.copyOf(nals, count);
+   }
+
+   private void release()
+   {
+      for(int i = 0; i < count; i++) {
+         pool.release(nals[i]);
+         nals[i] = null;
+      }
+      count = 0;
+      if(fragment != null) {
+         pool.release(fragment);
+         fragment = null;
+      }
+      keyframe = false;
+   }
+
+
+   private static void copy(ByteBuffer src, int offset, int length, ByteBuffer dst)
+   {
+      if(src.hasArray() && dst.hasArray()) {
+         System.arraycopy(src.array(), src.arrayOffset() + offset,
+                           dst.array(), dst.arrayOffset() + dst.position(), length);
+         dst.position(dst.position() + length);
+      } else {
+         ByteBuffer dup = src.duplicate();
+         dup.limit(offset + length).position(offset);
+         dst.put(dup);
+      }
+   }
+
+
+
+
+   private static boolean isWellFormed(RtpPacket packet, ByteBuffer data)
+   {
+      try {
+         packet.wrap(data);
+         return true;
+      } catch(IllegalArgumentException e) {
+         return false;
+      }
+   }
+
+   private static String encodingOf(Attribute rtpmap)
+   {
+      // 96 H264/90000
+      String value = (rtpmap != null) ? rtpmap.getValue() : null;
+      if(value == null) return null;
+      int start = value.indexOf(' ') + 1, end = value.indexOf('/', start);
+      return value.substring(start, (end < 0) ? value.length() : end).trim();
+   }
+
+   /**
+    * Parse the semicolon separated parameters of an fmtp attribute value into a
+    * map keyed by lower case parameter name.
+    */
+   static Map<String,String> parseFormat(Attribute fmtp)
+   {
+      return parseFormat((fmtp != null) ? fmtp.getValue() : null);
+   }
+
+   static Map<String,String> parseFormat(String value)
+   {
+      // 96 packetization-mode=1;profile-level-id=42001f;sprop-parameter-sets=Z0IAH5WoFAFuQA==,aM48gA==
+      Map<String,String> params = new HashMap<>();
+      if(value != null) {
+         int space = value.indexOf(' ');
+         for(String param : value.substring(space + 1).split(";")) {
+            int eq = param.indexOf('=');
+            if(eq > 0) params.put(param.substring(0, eq).trim().toLowerCase(), param.substring(eq + 1).trim());
+         }
+      }
+      return params;
+   }
+
+   /**
+    * Decode the given comma separated lists of base64 encoded parameter sets,
+    * ignoring any which are malformed.
+    */
+   static byte[][] decode(String ... lists)
+   {
+      byte[][] sets = new byte[0][];
+      for(String list : lists) {
+         if(list == null) continue;
+         for(String item : list.split(",")) {
+            try {
+               byte[] set = Base64.getDecoder().decode(item.trim());
+               if(set.length > 0) {
+                  sets = Arrays.copyOf(sets, sets.length + 1);
+                  sets[sets.length - 1] = set;
+               }
+            } catch(IllegalArgumentException e) {
+               // skip malformed parameter set
+            }
+         }
+      }
+      return sets;
+   }
+
+}
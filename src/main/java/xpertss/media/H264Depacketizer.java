@@ -0,0 +1,116 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import xpertss.media.rtp.RtpPacket;
+import xpertss.nio.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A depacketizer for H.264 video as described in RFC 6184. Single NAL unit,
+ * STAP-A, STAP-B, FU-A and FU-B payloads are supported. Multi-time aggregation
+ * packets are discarded.
+ */
+public final class H264Depacketizer extends Depacketizer {
+
+   private static final int STAP_A = 24;
+   private static final int STAP_B = 25;
+   private static final int FU_A = 28;
+   private static final int FU_B = 29;
+
+   private final byte[] header = new byte[1];
+
+   /**
+    * Create an H.264 depacketizer.
+    *
+    * @param pool The pool from which NAL unit buffers are borrowed
+    * @param parameterSets The decoded out of band SPS and PPS or {@code null}
+    * @param handler The recipient of completed access units
+    */
+   public H264Depacketizer(BufferPool pool, byte[][] parameterSets, Consumer<AccessUnit> handler)
+   {
+      super(pool, parameterSets, handler);
+   }
+
+
+   @Override
+   protected void depacketize(ByteBuffer buf, int offset, int length)
+   {
+      if(length < 1) {
+         malformed();
+         return;
+      }
+      int indicator = buf.get(offset) & 0xff;
+      int type = indicator & 0x1f;
+      if(type >= 1 && type <= 23) {
+         single(buf, offset, length);
+      } else if(type == STAP_A || type == STAP_B) {
+         int skip = (type == STAP_A) ? 1 : 3;
+         aggregate(buf, offset + skip, length - skip);
+      } else if(type == FU_A || type == FU_B) {
+         if(length < 2) {
+            malformed();
+            return;
+         }
+         int fu = buf.get(offset + 1) & 0xff;
+         boolean start = (fu & 0x80) != 0, end = (fu & 0x40) != 0;
+         int skip = 2;
+         if(start) {
+            header[0] = (byte) ((indicator & 0xe0) | (fu & 0x1f));
+            begin(header, 1);
+            // only start fragments carry a decoding order number
+            if(type == FU_B) skip += 2;
+         }
+         if(length < skip) malformed();
+         else append(buf, offset + skip, length - skip, end);
+      }
+   }
+
+   /**
+    * Returns true if the given packet carries all or part of an IDR picture or
+    * a parameter set.
+    */
+   static boolean isKeyframe(RtpPacket packet)
+   {
+      ByteBuffer buf = packet.getBuffer();
+      int offset = packet.getPayloadOffset(), end = offset + packet.getPayloadLength();
+      if(offset >= end) return false;
+      int type = buf.get(offset) & 0x1f;
+      if(type == STAP_A || type == STAP_B) {
+         offset += (type == STAP_A) ? 1 : 3;
+         while(offset + 3 <= end) {
+            if(isKeyType(buf.get(offset + 2) & 0x1f)) return true;
+            offset += 2 + (buf.getShort(offset) & 0xffff);
+         }
+         return false;
+      } else if(type == FU_A || type == FU_B) {
+         return offset + 1 < end && isKeyType(buf.get(offset + 1) & 0x1f);
+      }
+      return isKeyType(type);
+   }
+
+   private static boolean isKeyType(int type)
+   {
+      return type == 5 || type == 7 || type == 8;
+   }
+
+
+   @Override
+   protected boolean isKeyframe(ByteBuffer nal)
+   {
+      return (nal.get(nal.position()) & 0x1f) == 5;
+   }
+
+   @Override
+   protected boolean isParameterSet(ByteBuffer nal)
+   {
+      int type = nal.get(nal.position()) & 0x1f;
+      return type == 7 || type == 8;
+   }
+
+}
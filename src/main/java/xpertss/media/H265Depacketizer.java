@@ -0,0 +1,110 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import xpertss.media.rtp.RtpPacket;
+import xpertss.nio.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A depacketizer for H.265 video as described in RFC 7798. Single NAL unit,
+ * aggregation and fragmentation unit payloads are supported for streams which
+ * do not transmit decoding order numbers. PACI packets are discarded.
+ */
+public final class H265Depacketizer extends Depacketizer {
+
+   private static final int AP = 48;
+   private static final int FU = 49;
+
+   private final byte[] header = new byte[2];
+
+   /**
+    * Create an H.265 depacketizer.
+    *
+    * @param pool The pool from which NAL unit buffers are borrowed
+    * @param parameterSets The decoded out of band VPS, SPS and PPS or {@code null}
+    * @param handler The recipient of completed access units
+    */
+   public H265Depacketizer(BufferPool pool, byte[][] parameterSets, Consumer<AccessUnit> handler)
+   {
+      super(pool, parameterSets, handler);
+   }
+
+
+   @Override
+   protected void depacketize(ByteBuffer buf, int offset, int length)
+   {
+      if(length < 2) {
+         malformed();
+         return;
+      }
+      int first = buf.get(offset) & 0xff;
+      int type = (first >>> 1) & 0x3f;
+      if(type < AP) {
+         single(buf, offset, length);
+      } else if(type == AP) {
+         aggregate(buf, offset + 2, length - 2);
+      } else if(type == FU) {
+         if(length < 3) {
+            malformed();
+            return;
+         }
+         int fu = buf.get(offset + 2) & 0xff;
+         if((fu & 0x80) != 0) {
+            header[0] = (byte) ((first & 0x81) | ((fu & 0x3f) << 1));
+            header[1] = buf.get(offset + 1);
+            begin(header, 2);
+         }
+         append(buf, offset + 3, length - 3, (fu & 0x40) != 0);
+      }
+   }
+
+   /**
+    * Returns true if the given packet carries all or part of an IRAP picture
+    * or a parameter set.
+    */
+   static boolean isKeyframe(RtpPacket packet)
+   {
+      ByteBuffer buf = packet.getBuffer();
+      int offset = packet.getPayloadOffset(), end = offset + packet.getPayloadLength();
+      if(offset + 1 >= end) return false;
+      int type = (buf.get(offset) >>> 1) & 0x3f;
+      if(type == AP) {
+         offset += 2;
+         while(offset + 3 <= end) {
+            if(isKeyType((buf.get(offset + 2) >>> 1) & 0x3f)) return true;
+            offset += 2 + (buf.getShort(offset) & 0xffff);
+         }
+         return false;
+      } else if(type == FU) {
+         return offset + 2 < end && isKeyType(buf.get(offset + 2) & 0x3f);
+      }
+      return isKeyType(type);
+   }
+
+   private static boolean isKeyType(int type)
+   {
+      return (type >= 16 && type <= 21) || (type >= 32 && type <= 34);
+   }
+
+
+   @Override
+   protected boolean isKeyframe(ByteBuffer nal)
+   {
+      int type = (nal.get(nal.position()) >>> 1) & 0x3f;
+      return type >= 16 && type <= 21;
+   }
+
+   @Override
+   protected boolean isParameterSet(ByteBuffer nal)
+   {
+      int type = (nal.get(nal.position()) >>> 1) & 0x3f;
+      return type >= 32 && type <= 34;
+   }
+
+}
@@ -17,6 +17,8 @@ public class MediaChannel implements Comparable<MediaChannel> {
 
    private final MediaDescription desc;
    private final Range<Integer> channels;
+   private ChannelSink dataSink;
+   private ChannelSink controlSink;
 
    public MediaChannel(MediaDescription desc, Range<Integer> channels)
    {
@@ -64,6 +66,47 @@ public class MediaChannel implements Comparable<MediaChannel> {
    }
 
 
+
+
+   /**
+    * Register the sink that will receive the packets delivered on the lower,
+    * media data, channel identifier. Packets on a channel without a sink are
+    * delivered to {@link MediaConsumer#consume(int, java.nio.ByteBuffer)}.
+    * <p/>
+    * Sinks must be registered from within the consumer's createChannel
+    * callback.
+    */
+   public void setDataSink(ChannelSink dataSink)
+   {
+      this.dataSink = dataSink;
+   }
+
+   public ChannelSink getDataSink()
+   {
+      return dataSink;
+   }
+
+
+   /**
+    * Register the sink that will receive the packets delivered on the upper,
+    * control, channel identifier. Packets on a channel without a sink are
+    * delivered to {@link MediaConsumer#consume(int, java.nio.ByteBuffer)}.
+    * <p/>
+    * Sinks must be registered from within the consumer's createChannel
+    * callback.
+    */
+   public void setControlSink(ChannelSink controlSink)
+   {
+      this.controlSink = controlSink;
+   }
+
+   public ChannelSink getControlSink()
+   {
+      return controlSink;
+   }
+
+
+
    /**
     * Compares this media channel to another based on its channel identifiers.
     */
@@ -39,6 +39,9 @@ public interface MediaConsumer {
     * Once playback has begun the actual channel data will be delivered
     * to the consumer via this method. The channelId will be one of the
     * identifiers previously communicated to the newChannel callback.
+    * <p/>
+    * The data buffer is only valid for the duration of this call. It
+    * must be copied if it needs to be retained.
     */
    public void consume(int channelId, ByteBuffer data);
 
@@ -0,0 +1,102 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media;
+
+import xpertss.lang.Objects;
+import xpertss.sdp.MediaDescription;
+import xpertss.sdp.SessionDescription;
+import xpertss.threads.Threads;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A media consumer decorator which shields the caller from any exception thrown
+ * by the consumer it wraps. Those exceptions are sent to the calling thread's
+ * uncaught exception handler and null is returned where a value is expected.
+ * <p/>
+ * This provides the same semantics as wrapping the consumer in a
+ * {@link xpertss.utils.SafeProxy} without the reflection, argument array and
+ * boxing overhead on the per packet consume path.
+ */
+public final class SafeMediaConsumer implements MediaConsumer {
+
+   /**
+    * Wrap the given consumer unless it is already wrapped.
+    */
+   public static MediaConsumer wrap(MediaConsumer consumer)
+   {
+      Objects.notNull(consumer, "consumer");
+      return (consumer instanceof SafeMediaConsumer) ? consumer : new SafeMediaConsumer(consumer);
+   }
+
+
+   private final MediaConsumer proxied;
+
+   private SafeMediaConsumer(MediaConsumer proxied)
+   {
+      this.proxied = proxied;
+   }
+
+
+   @Override
+   public MediaDescription[] select(SessionDescription sdp)
+   {
+      try {
+         return proxied.select(sdp);
+      } catch(Throwable t) {
+         Threads.report(t);
+      }
+      return null;
+   }
+
+   @Override
+   public void createChannel(MediaChannel channel)
+   {
+      try {
+         proxied.createChannel(channel);
+      } catch(Throwable t) {
+         Threads.report(t);
+      }
+   }
+
+   @Override
+   public void destroyChannels()
+   {
+      try {
+         proxied.destroyChannels();
+      } catch(Throwable t) {
+         Threads.report(t);
+      }
+   }
+
+   @Override
+   public void consume(int channelId, ByteBuffer data)
+   {
+      try {
+         proxied.consume(channelId, data);
+      } catch(Throwable t) {
+         Threads.report(t);
+      }
+   }
+
+   @Override
+   public void handle(Throwable t)
+   {
+      try {
+         proxied.handle(t);
+      } catch(Throwable e) {
+         Threads.report(e);
+      }
+   }
+
+
+   @Override
+   public String toString()
+   {
+      return "SafeMediaConsumer<" + proxied.toString() + ">";
+   }
+
+}
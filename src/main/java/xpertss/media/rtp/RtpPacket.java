@@ -0,0 +1,243 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.media.rtp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A flyweight view of an RTP packet (RFC 3550) over the buffer delivered to a
+ * {@link xpertss.media.MediaConsumer}. Wrapping a buffer validates the packet
+ * structure and records the offsets of its parts but does not copy anything,
+ * and the accessors read directly from the buffer.
+ * <p/>
+ * A single instance may be reused for every packet on a channel keeping the
+ * decode path allocation free. As with the delivered buffer itself, a
+ * wrapped packet is only valid for the duration of the consume call.
+ * <p/>
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |V=2|P|X|  CC   |M|     PT      |       sequence number         |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |                           timestamp                           |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |           synchronization source (SSRC) identifier            |
+ * +=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+=+
+ * |            contributing source (CSRC) identifiers             |
+ * |                             ....                              |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * </pre>
+ */
+public final class RtpPacket {
+
+   private static final int HEADER_LENGTH = 12;
+
+   private ByteBuffer buf;
+   private int base;
+   private int extension;     // offset of the extension header or -1
+   private int payload;       // offset of the payload
+   private int limit;         // end of the payload excluding padding
+
+
+   /**
+    * Wrap the given buffer's remaining content, returning this packet. The
+    * buffer's position and limit are not modified.
+    *
+    * @throws IllegalArgumentException if the buffer does not contain a
+    *          well formed RTP version 2 packet
+    */
+   public RtpPacket wrap(ByteBuffer buf)
+   {
+      int base = buf.position();
+      int end = buf.limit();
+      if(end - base < HEADER_LENGTH) throw new IllegalArgumentException("packet too short");
+      int first = buf.get(base) & 0xff;
+      if((first >>> 6) != 2) throw new IllegalArgumentException("unsupported rtp version");
+
+      int offset = base + HEADER_LENGTH + (first & 0x0f) * 4;
+      int extension = -1;
+      if((first & 0x10) != 0) {
+         if(end - offset < 4) throw new IllegalArgumentException("truncated extension header");
+         extension = offset;
+         offset += 4 + (buf.getShort(offset + 2) & 0xffff) * 4;
+      }
+      if((first & 0x20) != 0 && end > offset) {
+         end -= buf.get(end - 1) & 0xff;
+      }
+      if(offset > end) throw new IllegalArgumentException("malformed rtp packet");
+
+      this.buf = buf;
+      this.base = base;
+      this.extension = extension;
+      this.payload = offset;
+      this.limit = end;
+      return this;
+   }
+
+   /**
+    * Returns the buffer this packet currently wraps.
+    */
+   public ByteBuffer getBuffer()
+   {
+      return buf;
+   }
+
+
+
+   public int getVersion()
+   {
+      return (buf.get(base) & 0xff) >>> 6;
+   }
+
+   public boolean hasPadding()
+   {
+      return (buf.get(base) & 0x20) != 0;
+   }
+
+   public boolean hasExtension()
+   {
+      return extension >= 0;
+   }
+
+   public boolean isMarker()
+   {
+      return (buf.get(base + 1) & 0x80) != 0;
+   }
+
+   public int getPayloadType()
+   {
+      return buf.get(base + 1) & 0x7f;
+   }
+
+   /**
+    * Returns the 16 bit sequence number as an unsigned value.
+    */
+   public int getSequence()
+   {
+      return buf.getShort(base + 2) & 0xffff;
+   }
+
+   /**
+    * Returns the 32 bit timestamp as an unsigned value.
+    */
+   public long getTimestamp()
+   {
+      return buf.getInt(base + 4) & 0xffffffffL;
+   }
+
+   /**
+    * Returns the 32 bit synchronization source identifier as an unsigned value.
+    */
+   public long getSsrc()
+   {
+      return buf.getInt(base + 8) & 0xffffffffL;
+   }
+
+
+
+   public int getCsrcCount()
+   {
+      return buf.get(base) & 0x0f;
+   }
+
+   /**
+    * Returns the contributing source identifier at the given index as an
+    * unsigned value.
+    *
+    * @throws IndexOutOfBoundsException if index is not less than the csrc count
+    */
+   public long getCsrc(int index)
+   {
+      if(index < 0 || index >= getCsrcCount()) throw new IndexOutOfBoundsException("csrc " + index);
+      return buf.getInt(base + HEADER_LENGTH + index * 4) & 0xffffffffL;
+   }
+
+
+
+   /**
+    * Returns the profile specific identifier of the header extension or -1
+    * if the packet has no extension.
+    */
+   public int getExtensionProfile()
+   {
+      return (extension < 0) ? -1 : buf.getShort(extension) & 0xffff;
+   }
+
+   /**
+    * Returns the length in bytes of the header extension data, excluding
+    * its four byte header, or zero if the packet has no extension.
+    */
+   public int getExtensionLength()
+   {
+      return (extension < 0) ? 0 : (buf.getShort(extension + 2) & 0xffff) * 4;
+   }
+
+   /**
+    * Returns the absolute offset within the buffer of the header extension
+    * data or -1 if the packet has no extension.
+    */
+   public int getExtensionOffset()
+   {
+      return (extension < 0) ? -1 : extension + 4;
+   }
+
+   /**
+    * Returns a slice of the buffer containing the header extension data or
+    * {@code null} if the packet has no extension.
+    */
+   public ByteBuffer getExtension()
+   {
+      return (extension < 0) ? null : slice(extension + 4, getExtensionLength());
+   }
+
+
+
+   /**
+    * Returns the absolute offset within the buffer of the payload.
+    */
+   public int getPayloadOffset()
+   {
+      return payload;
+   }
+
+   /**
+    * Returns the length of the payload excluding any padding.
+    */
+   public int getPayloadLength()
+   {
+      return limit - payload;
+   }
+
+   /**
+    * Returns a slice of the buffer containing the payload excluding any
+    * padding. Consumers on the allocation free path should prefer using
+    * the payload offset and length to read from the wrapped buffer.
+    */
+   public ByteBuffer getPayload()
+   {
+      return slice(payload, limit - payload);
+   }
+
+
+
+   @Override
+   public String toString()
+   {
+      return String.format("RtpPacket{pt=%d, seq=%d, ts=%d, ssrc=%d, marker=%b, size=%d}",
+                              getPayloadType(), getSequence(), getTimestamp(), getSsrc(),
+                              isMarker(), getPayloadLength());
+   }
+
+
+   private ByteBuffer slice(int offset, int length)
+   {
+      ByteBuffer dup = buf.duplicate();
+      dup.limit(offset + length).position(offset);
+      return dup.slice();
+   }
+
+}
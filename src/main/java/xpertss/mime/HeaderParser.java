@@ -7,7 +7,11 @@ package xpertss.mime;
 
 import xpertss.mime.spi.HeaderParserProvider;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
  * HeaderParser will parse MIME headers into Header objects.
@@ -20,8 +24,8 @@ import java.util.ServiceLoader;
  */
 public abstract class HeaderParser {
 
-   private static ServiceLoader<HeaderParserProvider> loader =
-         ServiceLoader.load(HeaderParserProvider.class, HeaderParserProvider.class.getClassLoader());
+   private static final List<HeaderParserProvider> fallback = new ArrayList<>();
+   private static final ParserTable table = ParserTable.load(fallback);
 
 
    /**
@@ -58,14 +62,46 @@ public abstract class HeaderParser {
    {
       if(name == null) throw new NullPointerException("name can not be null");
       if(rawValue == null) throw new NullPointerException("rawValue can not be null");
-      // revert to the service providers.
-      for(HeaderParserProvider provider: loader) {
+      int index = table.indexOf(name);
+      if(index >= 0) return table.parsers[index].doParse(rawValue);
+      // revert to the service providers which could not enumerate their headers.
+      for(HeaderParserProvider provider: fallback) {
          HeaderParser parser = provider.create(name);
          if(parser != null) return parser.doParse(rawValue);
       }
       return new RawHeader(name, rawValue); // default to a RawHeader as nothing knows how to parse it
    }
 
+   /**
+    * Returns the canonical form of the given header name if it is known to
+    * one of the service providers, otherwise the name is returned as given.
+    */
+   public static String canonicalize(String name)
+   {
+      String canonical = lookup(name);
+      return (canonical == null) ? name : canonical;
+   }
+
+   /**
+    * Returns the interned canonical header name for the given name or
+    * {@code null} if it is not a known header.
+    */
+   static String lookup(CharSequence name)
+   {
+      int index = table.indexOf(name);
+      return (index < 0) ? null : table.names[index];
+   }
+
+   /**
+    * Returns the interned canonical header name represented by the given
+    * range of US-ASCII bytes or {@code null} if it is not a known header.
+    */
+   static String lookup(byte[] src, int offset, int length)
+   {
+      int index = table.indexOf(src, offset, length);
+      return (index < 0) ? null : table.names[index];
+   }
+
 
    /**
     * Service provider implementations should implement this method to parse a
@@ -77,6 +113,116 @@ public abstract class HeaderParser {
     */
    protected abstract Header doParse(CharSequence raw) throws MalformedException;
 
+   /**
+    * An immutable open addressing hash table mapping header names to their
+    * parsers. Hashing and comparison are case-insensitive and operate on the
+    * name in place so a lookup does not allocate.
+    */
+   private static class ParserTable {
+
+      private final String[] names;
+      private final HeaderParser[] parsers;
+      private final int mask;
+
+      private ParserTable(int size)
+      {
+         int capacity = Integer.highestOneBit(Math.max(size, 1) * 4 - 1);
+         this.names = new String[capacity];
+         this.parsers = new HeaderParser[capacity];
+         this.mask = capacity - 1;
+      }
+
+      private void put(String name, HeaderParser parser)
+      {
+         int index = hash(name) & mask;
+         while(names[index] != null) index = (index + 1) & mask;
+         names[index] = name.intern();
+         parsers[index] = parser;
+      }
+
+      private int indexOf(CharSequence name)
+      {
+         for(int index = hash(name) & mask; names[index] != null; index = (index + 1) & mask) {
+            if(equal(names[index], name)) return index;
+         }
+         return -1;
+      }
+
+      private int indexOf(byte[] src, int offset, int length)
+      {
+         int h = 0;
+         for(int i = offset; i < offset + length; i++) h = 31 * h + lower((char) (src[i] & 0xff));
+         for(int index = spread(h) & mask; names[index] != null; index = (index + 1) & mask) {
+            String name = names[index];
+            if(name.length() == length) {
+               int i = 0;
+               while(i < length && lower(name.charAt(i)) == lower((char) (src[offset + i] & 0xff))) i++;
+               if(i == length) return index;
+            }
+         }
+         return -1;
+      }
+
+
+      private static int hash(CharSequence name)
+      {
+         int h = 0;
+         for(int i = 0; i < name.length(); i++) h = 31 * h + lower(name.charAt(i));
+         return spread(h);
+      }
+
+      private static int spread(int h)
+      {
+         return h ^ (h >>> 16);
+      }
+
+      private static boolean equal(String name, CharSequence other)
+      {
+         if(name.length() != other.length()) return false;
+         for(int i = 0; i < name.length(); i++) {
+            if(lower(name.charAt(i)) != lower(other.charAt(i))) return false;
+         }
+         return true;
+      }
+
+      private static char lower(char c)
+      {
+         return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+      }
+
+
+      /**
+       * Resolve each name enumerated by the providers to the parser the first
+       * provider in load order would have created for it. Providers which do
+       * not enumerate their names are added to the fallback list.
+       */
+      private static ParserTable load(List<HeaderParserProvider> fallback)
+      {
+         List<HeaderParserProvider> providers = new ArrayList<>();
+         ServiceLoader.load(HeaderParserProvider.class, HeaderParserProvider.class.getClassLoader())
+                                                                              .forEach(providers::add);
+         Set<String> names = new LinkedHashSet<>();
+         for(HeaderParserProvider provider : providers) {
+            Set<String> supported = provider.getHeaderNames();
+            if(supported == null) fallback.add(provider);
+            else names.addAll(supported);
+         }
+
+         ParserTable table = new ParserTable(names.size());
+         for(String name : names) {
+            if(table.indexOf(name) >= 0) continue;   // differs only in case
+            for(HeaderParserProvider provider : providers) {
+               HeaderParser parser = provider.create(name);
+               if(parser != null) {
+                  table.put(name, parser);
+                  break;
+               }
+            }
+         }
+         return table;
+      }
+   }
+
    private static class RawHeader implements Header {
 
       private String name;
@@ -5,17 +5,20 @@
  */
 package xpertss.mime;
 
-import xpertss.function.Predicates;
 import xpertss.lang.Integers;
 import xpertss.lang.Objects;
-import xpertss.lang.Strings;
 import xpertss.utils.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.function.Predicate;
+
+import static xpertss.io.Charsets.US_ASCII;
 
 
 /**
@@ -37,111 +40,59 @@ public class Headers {
    }
 
 
-   private List<Header> headers;
+   private static final String[] MAIL = {
+      "Return-Path", "Received", "Message-ID", "Resent-Date", "Date", "Resent-From", "From", "Sender",
+      "Reply-To", "To", "Subject", "Cc", "In-Reply-To", "Resent-Message-ID", "Errors-To", "Mime-Version",
+      "Content-Type", "Content-Transfer-Encoding", "Content-MD5", ":", "Content-Length", "Status"
+   };
+
+   private static final String[] HTTP = {
+      "Host", "User-Agent", "Date",
+      "Accept", "Accept-Language", "Accept-Encoding", "Accept-Charset",
+      "Authorization", "Proxy-Authorization",
+      "Referer", "If-Modified-Since", "If-None-Match",
+      "Transfer-Encoding",
+      "Content-Disposition", "Content-Type", "Content-Location", "Content-MD5", "Content-Language",
+      "Content-Encoding", "Content-Length", ":",
+      "Proxy-Connection", "Connection", "Pragma", "Cache-Control"
+   };
+
+   private static final String[] RTSP = {
+      "Server", "CSeq", "User-Agent", "Date", "Expires",
+      "Accept", "Accept-Language", "Accept-Encoding",
+      "Authorization",
+      "Referer", "If-Modified-Since", "If-Match", "Last-Modified",
+      "Transport", "Session", "RTP-Info", "Location", "Range",
+      "Content-Base", "Content-Type", "Content-Location", "Content-Language", "Content-Encoding",
+      "Content-Length", ":",
+      "Connection", "Cache-Control"
+   };
+
+   private static final Map<String,Integer> MAIL_RANKS = ranks(MAIL);
+   private static final Map<String,Integer> HTTP_RANKS = ranks(HTTP);
+   private static final Map<String,Integer> RTSP_RANKS = ranks(RTSP);
+
+
+
+   // Slots are kept in output order while the index provides lookup by name
+   private final List<Slot> slots = new ArrayList<Slot>();
+   private final Map<String,Slot> index = new HashMap<String,Slot>();
+   private final Map<String,Integer> ranks;
+   private final int wildcard;
    private boolean readOnly;
 
    public Headers(Type type)
    {
-      headers = new ArrayList<Header>();
-
-      if (Type.Mail == type) {
-         headers.add(new PositionHeader("Return-Path"));
-         headers.add(new PositionHeader("Received"));
-         headers.add(new PositionHeader("Message-ID"));
-         headers.add(new PositionHeader("Resent-Date"));
-         headers.add(new PositionHeader("Date"));
-         headers.add(new PositionHeader("Resent-From"));
-         headers.add(new PositionHeader("From"));
-         headers.add(new PositionHeader("Sender"));
-         headers.add(new PositionHeader("Reply-To"));
-         headers.add(new PositionHeader("To"));
-         headers.add(new PositionHeader("Subject"));
-         headers.add(new PositionHeader("Cc"));
-         headers.add(new PositionHeader("In-Reply-To"));
-         headers.add(new PositionHeader("Resent-Message-ID"));
-         headers.add(new PositionHeader("Errors-To"));
-         headers.add(new PositionHeader("Mime-Version"));
-         headers.add(new PositionHeader("Content-Type"));
-         headers.add(new PositionHeader("Content-Transfer-Encoding"));
-         headers.add(new PositionHeader("Content-MD5"));
-         headers.add(new PositionHeader(":"));
-         headers.add(new PositionHeader("Content-Length"));
-         headers.add(new PositionHeader("Status"));
+      if(type == Type.Mail) {
+         ranks = MAIL_RANKS;
       } else if(type == Type.Http) {
-         headers.add(new PositionHeader("Host"));
-         headers.add(new PositionHeader("User-Agent"));
-         headers.add(new PositionHeader("Date"));
-
-         headers.add(new PositionHeader("Accept"));
-         headers.add(new PositionHeader("Accept-Language"));
-         headers.add(new PositionHeader("Accept-Encoding"));
-         headers.add(new PositionHeader("Accept-Charset"));
-
-         headers.add(new PositionHeader("Authorization"));
-         headers.add(new PositionHeader("Proxy-Authorization"));
-
-         headers.add(new PositionHeader("Referer"));
-         headers.add(new PositionHeader("If-Modified-Since"));
-         headers.add(new PositionHeader("If-None-Match"));
-
-         headers.add(new PositionHeader("Transfer-Encoding"));
-
-         headers.add(new PositionHeader("Content-Disposition"));
-         headers.add(new PositionHeader("Content-Type"));
-         headers.add(new PositionHeader("Content-Location"));
-         headers.add(new PositionHeader("Content-MD5"));
-         headers.add(new PositionHeader("Content-Language"));
-         headers.add(new PositionHeader("Content-Encoding"));
-         headers.add(new PositionHeader("Content-Length"));
-         headers.add(new PositionHeader(":"));
-
-         headers.add(new PositionHeader("Proxy-Connection"));
-         headers.add(new PositionHeader("Connection"));
-         headers.add(new PositionHeader("Pragma"));
-         headers.add(new PositionHeader("Cache-Control"));
+         ranks = HTTP_RANKS;
       } else if(type == Type.Rtsp) {
-         headers.add(new PositionHeader("Server"));
-         headers.add(new PositionHeader("CSeq"));
-         headers.add(new PositionHeader("User-Agent"));
-         headers.add(new PositionHeader("Date"));
-         headers.add(new PositionHeader("Expires"));
-
-         headers.add(new PositionHeader("Accept"));
-         headers.add(new PositionHeader("Accept-Language"));
-         headers.add(new PositionHeader("Accept-Encoding"));
-
-         headers.add(new PositionHeader("Authorization"));
-
-         headers.add(new PositionHeader("Referer"));
-         headers.add(new PositionHeader("If-Modified-Since"));
-         headers.add(new PositionHeader("If-Match"));
-         headers.add(new PositionHeader("Last-Modified"));
-
-         headers.add(new PositionHeader("Transport"));
-         headers.add(new PositionHeader("Session"));
-         headers.add(new PositionHeader("RTP-Info"));
-         headers.add(new PositionHeader("Location"));
-         headers.add(new PositionHeader("Range"));
-
-
-         headers.add(new PositionHeader("Content-Base"));
-         headers.add(new PositionHeader("Content-Type"));
-         headers.add(new PositionHeader("Content-Location"));
-         headers.add(new PositionHeader("Content-Language"));
-         headers.add(new PositionHeader("Content-Encoding"));
-         headers.add(new PositionHeader("Content-Length"));
-         headers.add(new PositionHeader(":"));
-
-         headers.add(new PositionHeader("Connection"));
-         headers.add(new PositionHeader("Cache-Control"));
-
+         ranks = RTSP_RANKS;
+      } else {
+         ranks = null;
       }
-   }
-
-   private Headers(List<Header> headers)
-   {
-      this.headers = Objects.notNull(headers);
-      this.readOnly = true;
+      wildcard = (ranks == null) ? 0 : ranks.get(":");
    }
 
 
@@ -150,13 +101,12 @@ public class Headers {
     */
    public Enumeration<Header> headers()
    {
-      Predicate<Object> filter = Predicates.instanceOf(PositionHeader.class);
-      return new FilteringEnumeration(headers, filter);
+      return new SlotEnumeration(slots);
    }
 
    public boolean contains(String name)
    {
-      return getHeader(name) != null;
+      return index.containsKey(key(name));
    }
 
 
@@ -165,12 +115,8 @@ public class Headers {
     */
    public Header getHeader(String name)
    {
-      for(Header header : headers) {
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            if(!(header instanceof PositionHeader)) return header;
-         }
-      }
-      return null;
+      Slot slot = index.get(key(name));
+      return (slot == null) ? null : slot.headers.get(0);
    }
 
    /**
@@ -179,13 +125,8 @@ public class Headers {
     */
    public Header[] getHeaders(String name)
    {
-      List<Header> results = new ArrayList<Header>();
-      for(Header header : headers) {
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            if(!(header instanceof PositionHeader)) results.add(header);
-         }
-      }
-      return results.toArray(new Header[results.size()]);
+      Slot slot = index.get(key(name));
+      return (slot == null) ? new Header[0] : slot.headers.toArray(new Header[slot.headers.size()]);
    }
 
 
@@ -199,18 +140,7 @@ public class Headers {
    public void addHeader(String name, String value) throws MalformedException
    {
       if(readOnly) throw new IllegalStateException("src are readonly");
-      Header newHeader = HeaderParser.parse(name, value);
-      int pos = 0;
-      for(int i = headers.size() - 1; i >= 0; i--) {
-         Header header = headers.get(i);
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            headers.add(i + 1, newHeader);
-            return;
-         } else if(header.getName().equals(":")) {
-            pos = i;
-         }
-      }
-      headers.add(pos + 1, newHeader);
+      append(HeaderParser.parse(name, value));
    }
 
    /**
@@ -220,24 +150,25 @@ public class Headers {
     * @throws MalformedException If the header name or value are malformed
     */
    public void setHeader(String name, String value) throws MalformedException
+   {
+      setHeader(HeaderParser.parse(name, value));
+   }
+
+   /**
+    * This will add the given header to its default position within the set
+    * removing any previously existing headers with the same name. Headers
+    * are immutable so a parsed header may be shared between many sets.
+    */
+   public void setHeader(Header newHeader)
    {
       if(readOnly) throw new IllegalStateException("src are readonly");
-      Header newHeader = HeaderParser.parse(name, value);
-      int pos = 0;
-      for(int i = headers.size() - 1; i >= 0; i--) {
-         Header header = headers.get(i);
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            if(header instanceof PositionHeader) {
-               headers.add(i + 1, newHeader);
-               return;
-            } else {
-               headers.remove(i);
-            }
-         } else if(Strings.equal(header.getName(), ":")) {
-            pos = i;
-         }
+      Slot slot = index.get(key(newHeader.getName()));
+      if(slot != null) {
+         slot.headers.clear();
+         slot.headers.add(newHeader);
+      } else {
+         append(newHeader);
       }
-      headers.add(pos + 1, newHeader);
    }
 
 
@@ -250,22 +181,8 @@ public class Headers {
    public boolean setIfNotSet(String name, String value) throws MalformedException
    {
       if(readOnly) throw new IllegalStateException("src are readonly");
-      Header newHeader = HeaderParser.parse(name, value);
-      int pos = 0;
-      for(int i = headers.size() - 1; i >= 0; i--) {
-         Header header = headers.get(i);
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            if(header instanceof PositionHeader) {
-               headers.add(i + 1, newHeader);
-               return true;
-            } else{
-               return false;
-            }
-         } else if(Strings.equal(header.getName(), ":")) {
-            pos = i;
-         }
-      }
-      headers.add(pos + 1, newHeader);
+      if(index.containsKey(key(name))) return false;
+      append(HeaderParser.parse(name, value));
       return true;
    }
 
@@ -275,21 +192,11 @@ public class Headers {
     */
    public int remove(String name)
    {
-      int count = 0;
-      for(int i = headers.size() - 1; i >= 0; i--) {
-         Header header = headers.get(i);
-         if(Strings.equalIgnoreCase(header.getName(), name)) {
-            if(header instanceof PositionHeader) {
-               return count;
-            } else {
-               headers.remove(i);
-               count++;
-            }
-         } else if(count > 0) {
-            return count;
-         }
-      }
-      return count;
+      if(readOnly) throw new IllegalStateException("src are readonly");
+      Slot slot = index.remove(key(name));
+      if(slot == null) return 0;
+      slots.remove(slot);
+      return slot.headers.size();
    }
 
 
@@ -321,7 +228,7 @@ public class Headers {
    {
       if(obj instanceof Headers) {
          Headers o = (Headers) obj;
-         return Objects.equal(headers, o.headers);
+         return Objects.equal(toList(), o.toList());
       }
       return false;
    }
@@ -329,7 +236,7 @@ public class Headers {
    @Override
    public int hashCode()
    {
-      return Objects.hash(headers);
+      return Objects.hash(toList());
    }
 
 
@@ -348,6 +255,46 @@ public class Headers {
 
 
 
+   private void append(Header header)
+   {
+      String key = key(header.getName());
+      Slot slot = index.get(key);
+      if(slot == null) {
+         Integer rank = (ranks == null) ? null : ranks.get(key);
+         slot = new Slot((rank == null) ? wildcard : rank);
+         // Slots are ordered by template rank and then by insertion order
+         int pos = slots.size();
+         while(pos > 0 && slots.get(pos - 1).rank > slot.rank) pos--;
+         slots.add(pos, slot);
+         index.put(key, slot);
+      }
+      slot.headers.add(header);
+   }
+
+   private List<Header> toList()
+   {
+      List<Header> result = new ArrayList<Header>();
+      for(Slot slot : slots) result.addAll(slot.headers);
+      return result;
+   }
+
+
+   /**
+    * Header names known to the parser framework are keyed by their interned
+    * canonical name so the common case does not allocate.
+    */
+   private static String key(String name)
+   {
+      String canonical = HeaderParser.lookup(name);
+      return (canonical != null) ? canonical : name.toLowerCase(Locale.ENGLISH);
+   }
+
+   private static Map<String,Integer> ranks(String[] template)
+   {
+      Map<String,Integer> ranks = new HashMap<String,Integer>();
+      for(int i = 0; i < template.length; i++) ranks.put(key(template[i]), i);
+      return ranks;
+   }
 
 
 
@@ -359,15 +306,55 @@ public class Headers {
 
    public static Headers create(List<String> raw)
    {
-      List<Header> headers = new ArrayList<Header>();
+      Headers headers = new Headers((Type) null);
       StringBuilder header = new StringBuilder();
+      List<Header> parsed = new ArrayList<Header>();
       for(int i = raw.size() - 1; i >= 0; i--) {
          header.insert(0, raw.get(i));
          if(!Utils.isWhiteSpace(header.charAt(0))) {
-            headers.add(0, HeaderParser.parse(Utils.getAndClear(header)));
+            parsed.add(0, HeaderParser.parse(Utils.getAndClear(header)));
          }
       }
-      return new Headers(headers);
+      for(Header h : parsed) headers.append(h);
+      headers.readOnly = true;
+      return headers;
+   }
+
+   /**
+    * Create a read-only set of headers from a raw block of US-ASCII encoded
+    * header lines. Each line is split into its name and value but the value
+    * is not parsed until it is first requested. Folded (continuation) lines
+    * are joined to the header they continue.
+    *
+    * @param src The array containing the raw header lines
+    * @param offset The offset of the first header line within the array
+    * @param length The number of bytes that make up the header lines
+    * @throws MalformedException If a header line is missing its name
+    */
+   public static Headers create(byte[] src, int offset, int length)
+   {
+      byte[] data = Arrays.copyOfRange(src, offset, offset + length);
+      Headers headers = new Headers((Type) null);
+      LazyHeader last = null;
+      for(int start = 0, end; start < data.length; start = end + 1) {
+         end = start;
+         while(end < data.length && data[end] != '\n') end++;
+         if(end == start || (end - start == 1 && data[start] == '\r')) continue;
+         if(last != null && (data[start] == ' ' || data[start] == '\t')) {
+            last.limit = end;
+         } else {
+            int colon = start;
+            while(colon < end && data[colon] != ':') colon++;
+            int nameEnd = colon;
+            while(nameEnd > start && Utils.isWhiteSpace((char) data[nameEnd - 1])) nameEnd--;
+            if(colon == end || nameEnd == start) throw new MalformedException("expected header name");
+            String name = HeaderParser.lookup(data, start, nameEnd - start);
+            if(name == null) name = new String(data, start, nameEnd - start, US_ASCII);
+            headers.append(last = new LazyHeader(name, data, colon + 1, end));
+         }
+      }
+      headers.readOnly = true;
+      return headers;
    }
 
    public static String toString(Header header)
@@ -377,54 +364,63 @@ public class Headers {
 
 
 
-   private static class FilteringEnumeration implements Enumeration<Header> {
+   private static class Slot {
 
-      private final List<Header> src;
-      private final Predicate<Object> filter;
+      private final List<Header> headers = new ArrayList<Header>(1);
+      private final int rank;
 
-      private Header  next;
-      private int     i;
-
-      private FilteringEnumeration(List<Header> headers, Predicate<Object> filter)
+      private Slot(int rank)
       {
-         this.src = Objects.notNull(headers);
-         this.filter = Objects.notNull(filter);
-         this.next = findNext();
+         this.rank = rank;
       }
+   }
 
+   private static class SlotEnumeration implements Enumeration<Header> {
 
-      @Override public boolean hasMoreElements()
+      private final List<Slot> src;
+
+      private int slot;
+      private int i;
+
+      private SlotEnumeration(List<Slot> slots)
       {
-         return next != null;
+         this.src = Objects.notNull(slots);
       }
 
-      @Override public Header nextElement()
+
+      @Override public boolean hasMoreElements()
       {
-         if(next == null) {
-            throw new NoSuchElementException("enumeration exhausted");
+         while(slot < src.size()) {
+            if(i < src.get(slot).headers.size()) return true;
+            slot++; i = 0;
          }
-         Header result = next;
-         next = findNext();
-         return result;
+         return false;
       }
 
-      private Header findNext()
+      @Override public Header nextElement()
       {
-         while(i < src.size()) {
-            Header header = src.get(i++);
-            if(!filter.test(header)) return header;
+         if(!hasMoreElements()) {
+            throw new NoSuchElementException("enumeration exhausted");
          }
-         return null;
+         return src.get(slot).headers.get(i++);
       }
    }
 
-   private static class PositionHeader implements Header {
+   private static class LazyHeader implements Header {
 
       private final String name;
+      private final byte[] data;
+      private final int offset;
+      private int limit;
+
+      private volatile Header parsed;
 
-      private PositionHeader(String name)
+      private LazyHeader(String name, byte[] data, int offset, int limit)
       {
-         this.name = Objects.notNull(name);
+         this.name = name;
+         this.data = data;
+         this.offset = offset;
+         this.limit = limit;
       }
 
       @Override
@@ -436,32 +432,60 @@ public class Headers {
       @Override
       public String getValue()
       {
-         return null;
+         return parsed().getValue();
       }
 
       @Override
       public Type getType()
       {
-         return Type.Raw;
+         return parsed().getType();
       }
 
       @Override
       public int size()
       {
-         return 0;
+         return parsed().size();
       }
 
       @Override
       public HeaderValue getValue(int index)
       {
-         return null;
+         return parsed().getValue(index);
       }
 
       @Override
       public HeaderValue getValue(String name)
       {
-         return null;
+         return parsed().getValue(name);
       }
 
+      @Override
+      public String toString()
+      {
+         return parsed().toString();
+      }
+
+      private Header parsed()
+      {
+         Header result = parsed;
+         if(result == null) parsed = result = HeaderParser.parse(name, rawValue());
+         return result;
+      }
+
+      private String rawValue()
+      {
+         // Strip the line breaks of folded lines along with surrounding whitespace
+         char[] chars = new char[limit - offset];
+         int count = 0;
+         for(int i = offset; i < limit; i++) {
+            char c = (char) (data[i] & 0xff);
+            if(c == '\r' || c == '\n') continue;
+            if(count == 0 && Utils.isWhiteSpace(c)) continue;
+            chars[count++] = c;
+         }
+         while(count > 0 && Utils.isWhiteSpace(chars[count - 1])) count--;
+         return new String(chars, 0, count);
+      }
    }
+
 }
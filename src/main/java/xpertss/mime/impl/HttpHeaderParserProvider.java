@@ -9,8 +9,10 @@ import xpertss.mime.Header;
 import xpertss.mime.HeaderParser;
 import xpertss.mime.spi.HeaderParserProvider;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * This implementation breaks down impl headers into two main categories plus a few
@@ -31,81 +33,86 @@ import java.util.Map;
  */
 public class HttpHeaderParserProvider implements HeaderParserProvider {
 
-   private Map<String,HeaderParser> parsers = new HashMap<>();
+   private final Map<String,HeaderParser> parsers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
    public HttpHeaderParserProvider()
    {
       // General Headers (Cache-Control, Connection, Date, Pragma, Trailer, Transfer-Encoding, Upgrade, Via, Warning)
-      parsers.put("CACHE-CONTROL",        new ComplexHeaderParser("Cache-Control", Header.Type.General));
-      parsers.put("CONNECTION",           new SimpleHeaderParser("Connection", Header.Type.General));
-      parsers.put("DATE",                 new SimpleHeaderParser("Date", Header.Type.General));
-      parsers.put("PRAGMA",               new SimpleHeaderParser("Pragma", Header.Type.General));
-      parsers.put("TRAILER",              new ComplexHeaderParser("Trailer", Header.Type.General));
-      parsers.put("TRANSFER-ENCODING",    new ComplexHeaderParser("Transfer-Encoding", Header.Type.General));
-      parsers.put("UPGRADE",              new ComplexHeaderParser("Upgrade", Header.Type.General));
-      parsers.put("VIA",                  new ComplexHeaderParser("Via", Header.Type.General));
+      parsers.put("Cache-Control",        new ComplexHeaderParser("Cache-Control", Header.Type.General));
+      parsers.put("Connection",           new SimpleHeaderParser("Connection", Header.Type.General));
+      parsers.put("Date",                 new SimpleHeaderParser("Date", Header.Type.General));
+      parsers.put("Pragma",               new SimpleHeaderParser("Pragma", Header.Type.General));
+      parsers.put("Trailer",              new ComplexHeaderParser("Trailer", Header.Type.General));
+      parsers.put("Transfer-Encoding",    new ComplexHeaderParser("Transfer-Encoding", Header.Type.General));
+      parsers.put("Upgrade",              new ComplexHeaderParser("Upgrade", Header.Type.General));
+      parsers.put("Via",                  new ComplexHeaderParser("Via", Header.Type.General));
       // TODO Warning
 
 
       // Request Headers (Accept, Accept-Charset, Accept-Encoding, Accept-Language, Authorization, Expect, From, Host,
       //                   If-Match, If-Modified-Since, If-None-Match, If-Range, If-Unmodified-Since, Max-Forwards,
       //                   Proxy-Authorization, Range, Referer, TE, User-Agent)
-      parsers.put("ACCEPT",               new ComplexHeaderParser("Accept", Header.Type.Request));
-      parsers.put("ACCEPT-CHARSET",       new ComplexHeaderParser("Accept-Charset", Header.Type.Request));
-      parsers.put("ACCEPT-ENCODING",      new ComplexHeaderParser("Accept-Encoding", Header.Type.Request));
-      parsers.put("ACCEPT-LANGUAGE",      new ComplexHeaderParser("Accept-Language", Header.Type.Request));
-      parsers.put("EXPECT",               new ComplexHeaderParser("Expect", Header.Type.Request));
-      parsers.put("FROM",                 new SimpleHeaderParser("From", Header.Type.Request));
-      parsers.put("HOST",                 new SimpleHeaderParser("Host", Header.Type.Request));
-      parsers.put("IF-MATCH",             new ComplexHeaderParser("If-Match", Header.Type.Request));
-      parsers.put("IF-MODIFIED-SINCE",    new SimpleHeaderParser("If-Modified-Since", Header.Type.Request));
-      parsers.put("IF-NONE-MATCH",        new ComplexHeaderParser("If-None-Match", Header.Type.Request));
-      parsers.put("IF-RANGE",             new SimpleHeaderParser("If-Range", Header.Type.Request));
-      parsers.put("IF-UNMODIFIED-SINCE",  new SimpleHeaderParser("If-Unmodified-Since", Header.Type.Request));
-      parsers.put("MAX-FORWARDS",         new SimpleHeaderParser("Max-Forwards", Header.Type.Request));
-      parsers.put("RANGE",                new ComplexHeaderParser("Range", Header.Type.Request));
-      parsers.put("REFERER",              new SimpleHeaderParser("Referer", Header.Type.Request));
+      parsers.put("Accept",               new ComplexHeaderParser("Accept", Header.Type.Request));
+      parsers.put("Accept-Charset",       new ComplexHeaderParser("Accept-Charset", Header.Type.Request));
+      parsers.put("Accept-Encoding",      new ComplexHeaderParser("Accept-Encoding", Header.Type.Request));
+      parsers.put("Accept-Language",      new ComplexHeaderParser("Accept-Language", Header.Type.Request));
+      parsers.put("Expect",               new ComplexHeaderParser("Expect", Header.Type.Request));
+      parsers.put("From",                 new SimpleHeaderParser("From", Header.Type.Request));
+      parsers.put("Host",                 new SimpleHeaderParser("Host", Header.Type.Request));
+      parsers.put("If-Match",             new ComplexHeaderParser("If-Match", Header.Type.Request));
+      parsers.put("If-Modified-Since",    new SimpleHeaderParser("If-Modified-Since", Header.Type.Request));
+      parsers.put("If-None-Match",        new ComplexHeaderParser("If-None-Match", Header.Type.Request));
+      parsers.put("If-Range",             new SimpleHeaderParser("If-Range", Header.Type.Request));
+      parsers.put("If-Unmodified-Since",  new SimpleHeaderParser("If-Unmodified-Since", Header.Type.Request));
+      parsers.put("Max-Forwards",         new SimpleHeaderParser("Max-Forwards", Header.Type.Request));
+      parsers.put("Range",                new ComplexHeaderParser("Range", Header.Type.Request));
+      parsers.put("Referer",              new SimpleHeaderParser("Referer", Header.Type.Request));
       parsers.put("TE",                   new ComplexHeaderParser("TE", Header.Type.Request));
-      parsers.put("USER-AGENT",           new SimpleHeaderParser("User-Agent", Header.Type.Request));
+      parsers.put("User-Agent",           new SimpleHeaderParser("User-Agent", Header.Type.Request));
 
-      parsers.put("AUTHORIZATION",        new SimpleHeaderParser("Authorization", Header.Type.Request)); // kind of unique
-      parsers.put("PROXY-AUTHORIZATION",  new SimpleHeaderParser("Proxy-Authorization", Header.Type.Request)); // kind of unique
+      parsers.put("Authorization",        new SimpleHeaderParser("Authorization", Header.Type.Request)); // kind of unique
+      parsers.put("Proxy-Authorization",  new SimpleHeaderParser("Proxy-Authorization", Header.Type.Request)); // kind of unique
       // TODO Cookie
 
 
       // Response Headers (Accept-Ranges, Age, ETag, Location, Proxy-Authenticate, Retry-After, Server, Vary,
       //                   WWW-Authenticate)
-      parsers.put("ACCEPT-RANGES",        new ComplexHeaderParser("Accept-Ranges", Header.Type.Response));
-      parsers.put("AGE",                  new SimpleHeaderParser("Age", Header.Type.Response));
-      parsers.put("ETAG",                 new SimpleHeaderParser("ETag", Header.Type.Response));
-      parsers.put("LOCATION",             new SimpleHeaderParser("Location", Header.Type.Response));
-      parsers.put("RETRY-AFTER",          new SimpleHeaderParser("Retry-After", Header.Type.Response));
-      parsers.put("SERVER",               new SimpleHeaderParser("Server", Header.Type.Response));
-      parsers.put("VARY",                 new ComplexHeaderParser("Vary", Header.Type.Response));
-
-      parsers.put("PROXY-AUTHENTICATE",   new SimpleHeaderParser("Proxy-Authenticate", Header.Type.Response)); // kind of unique
-      parsers.put("WWW-AUTHENTICATE",     new SimpleHeaderParser("WWW-Authenticate", Header.Type.Response)); // kind of unique
+      parsers.put("Accept-Ranges",        new ComplexHeaderParser("Accept-Ranges", Header.Type.Response));
+      parsers.put("Age",                  new SimpleHeaderParser("Age", Header.Type.Response));
+      parsers.put("ETag",                 new SimpleHeaderParser("ETag", Header.Type.Response));
+      parsers.put("Location",             new SimpleHeaderParser("Location", Header.Type.Response));
+      parsers.put("Retry-After",          new SimpleHeaderParser("Retry-After", Header.Type.Response));
+      parsers.put("Server",               new SimpleHeaderParser("Server", Header.Type.Response));
+      parsers.put("Vary",                 new ComplexHeaderParser("Vary", Header.Type.Response));
+
+      parsers.put("Proxy-Authenticate",   new SimpleHeaderParser("Proxy-Authenticate", Header.Type.Response)); // kind of unique
+      parsers.put("WWW-Authenticate",     new SimpleHeaderParser("WWW-Authenticate", Header.Type.Response)); // kind of unique
       // TODO Set-Cookie and possibly Set-Cookie2
 
 
       // Entity Headers (Allow, Content-Encoding, Content-Length, Content-Location, Content-MD5, Content-Range,
       //                  Content-Type, Expires, Last-Modified)
-      parsers.put("ALLOW",                new ComplexHeaderParser("Allow", Header.Type.Entity));
-      parsers.put("CONTENT-ENCODING",     new ComplexHeaderParser("Content-Encoding", Header.Type.Entity));
-      parsers.put("CONTENT-LANGUAGE",     new ComplexHeaderParser("Content-Language", Header.Type.Entity));
-      parsers.put("CONTENT-LENGTH",       new SimpleHeaderParser("Content-Length", Header.Type.Entity));
-      parsers.put("CONTENT-LOCATION",     new SimpleHeaderParser("Content-Location", Header.Type.Entity));
-      parsers.put("CONTENT-MD5",          new SimpleHeaderParser("Content-MD5", Header.Type.Entity));
-      parsers.put("CONTENT-RANGE",        new SimpleHeaderParser("Content-Range", Header.Type.Entity));
-      parsers.put("CONTENT-TYPE",         new SimpleHeaderParser("Content-Type", Header.Type.Entity));
-      parsers.put("EXPIRES",              new SimpleHeaderParser("Expires", Header.Type.Entity));
-      parsers.put("LAST-MODIFIED",        new SimpleHeaderParser("Last-Modified", Header.Type.Entity));
+      parsers.put("Allow",                new ComplexHeaderParser("Allow", Header.Type.Entity));
+      parsers.put("Content-Encoding",     new ComplexHeaderParser("Content-Encoding", Header.Type.Entity));
+      parsers.put("Content-Language",     new ComplexHeaderParser("Content-Language", Header.Type.Entity));
+      parsers.put("Content-Length",       new SimpleHeaderParser("Content-Length", Header.Type.Entity));
+      parsers.put("Content-Location",     new SimpleHeaderParser("Content-Location", Header.Type.Entity));
+      parsers.put("Content-MD5",          new SimpleHeaderParser("Content-MD5", Header.Type.Entity));
+      parsers.put("Content-Range",        new SimpleHeaderParser("Content-Range", Header.Type.Entity));
+      parsers.put("Content-Type",         new SimpleHeaderParser("Content-Type", Header.Type.Entity));
+      parsers.put("Expires",              new SimpleHeaderParser("Expires", Header.Type.Entity));
+      parsers.put("Last-Modified",        new SimpleHeaderParser("Last-Modified", Header.Type.Entity));
 
    }
 
    public HeaderParser create(String name)
    {
-      return parsers.get(name.toUpperCase());
+      return parsers.get(name);
+   }
+
+   public Set<String> getHeaderNames()
+   {
+      return Collections.unmodifiableSet(parsers.keySet());
    }
 
 
@@ -4,40 +4,42 @@ import xpertss.mime.Header;
 import xpertss.mime.HeaderParser;
 import xpertss.mime.spi.HeaderParserProvider;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  *
  */
 public class MailHeaderParserProvider implements HeaderParserProvider {
 
-   private Map<String,HeaderParser> parsers = new HashMap<>();
+   private final Map<String,HeaderParser> parsers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
    public MailHeaderParserProvider()
    {
       // rfc822
-      parsers.put("RESENT-MESSAGE-ID",          new SimpleHeaderParser("Resent-Message-ID", Header.Type.General));
-      parsers.put("IN-REPLY-TO",                new ComplexHeaderParser("In-Reply-To", Header.Type.General));
-      parsers.put("MESSAGE-ID",                 new SimpleHeaderParser("Message-ID", Header.Type.General));
-      parsers.put("REFERENCES",                 new ComplexHeaderParser("References", Header.Type.General));
+      parsers.put("Resent-Message-ID",          new SimpleHeaderParser("Resent-Message-ID", Header.Type.General));
+      parsers.put("In-Reply-To",                new ComplexHeaderParser("In-Reply-To", Header.Type.General));
+      parsers.put("Message-ID",                 new SimpleHeaderParser("Message-ID", Header.Type.General));
+      parsers.put("References",                 new ComplexHeaderParser("References", Header.Type.General));
 
-      parsers.put("RETURN-PATH",                new SimpleHeaderParser("Return-Path", Header.Type.General));
-      parsers.put("RECEIVED",                   new SimpleHeaderParser("Received", Header.Type.General));
-      parsers.put("RESENT-DATE",                new SimpleHeaderParser("Resent-Date", Header.Type.General));
+      parsers.put("Return-Path",                new SimpleHeaderParser("Return-Path", Header.Type.General));
+      parsers.put("Received",                   new SimpleHeaderParser("Received", Header.Type.General));
+      parsers.put("Resent-Date",                new SimpleHeaderParser("Resent-Date", Header.Type.General));
 
-      parsers.put("RESENT-SENDER",              new SimpleHeaderParser("Resent-Sender", Header.Type.General));
-      parsers.put("RESENT-FROM",                new SimpleHeaderParser("Resent-From", Header.Type.General));
-      parsers.put("REPLY-TO",                   new SimpleHeaderParser("Reply-To", Header.Type.General));
-      parsers.put("SENDER",                     new SimpleHeaderParser("Sender", Header.Type.General));
+      parsers.put("Resent-Sender",              new SimpleHeaderParser("Resent-Sender", Header.Type.General));
+      parsers.put("Resent-From",                new SimpleHeaderParser("Resent-From", Header.Type.General));
+      parsers.put("Reply-To",                   new SimpleHeaderParser("Reply-To", Header.Type.General));
+      parsers.put("Sender",                     new SimpleHeaderParser("Sender", Header.Type.General));
 
 
-      parsers.put("TO",                         new ComplexHeaderParser("To", Header.Type.General));
-      parsers.put("CC",                         new ComplexHeaderParser("Cc", Header.Type.General));
+      parsers.put("To",                         new ComplexHeaderParser("To", Header.Type.General));
+      parsers.put("Cc",                         new ComplexHeaderParser("Cc", Header.Type.General));
 
-      parsers.put("SUBJECT",                    new SimpleHeaderParser("Subject", Header.Type.General));
-      parsers.put("COMMENTS",                   new SimpleHeaderParser("Comments", Header.Type.General));
-      parsers.put("KEYWORDS",                   new ComplexHeaderParser("Keywords", Header.Type.General));
+      parsers.put("Subject",                    new SimpleHeaderParser("Subject", Header.Type.General));
+      parsers.put("Comments",                   new SimpleHeaderParser("Comments", Header.Type.General));
+      parsers.put("Keywords",                   new ComplexHeaderParser("Keywords", Header.Type.General));
 
 
 
@@ -49,12 +51,12 @@ public class MailHeaderParserProvider implements HeaderParserProvider {
 
 
       // rfc2045
-      parsers.put("MIME-VERSION",               new SimpleHeaderParser("MIME-Version", Header.Type.General));
-      parsers.put("CONTENT-ID",                 new SimpleHeaderParser("Content-ID", Header.Type.General));
-      parsers.put("CONTENT-TRANSFER-ENCODING",  new SimpleHeaderParser("Content-Transfer-Encoding", Header.Type.General));
-      parsers.put("CONTENT-DESCRIPTION",        new SimpleHeaderParser("Content-Description", Header.Type.General));
-      parsers.put("CONTENT-DISPOSITION",        new SimpleHeaderParser("Content-Disposition", Header.Type.General));
-      parsers.put("CONTENT-DURATION",           new SimpleHeaderParser("Content-Duration", Header.Type.General));
+      parsers.put("MIME-Version",               new SimpleHeaderParser("MIME-Version", Header.Type.General));
+      parsers.put("Content-ID",                 new SimpleHeaderParser("Content-ID", Header.Type.General));
+      parsers.put("Content-Transfer-Encoding",  new SimpleHeaderParser("Content-Transfer-Encoding", Header.Type.General));
+      parsers.put("Content-Description",        new SimpleHeaderParser("Content-Description", Header.Type.General));
+      parsers.put("Content-Disposition",        new SimpleHeaderParser("Content-Disposition", Header.Type.General));
+      parsers.put("Content-Duration",           new SimpleHeaderParser("Content-Duration", Header.Type.General));
 
 
 
@@ -70,7 +72,12 @@ public class MailHeaderParserProvider implements HeaderParserProvider {
    @Override
    public HeaderParser create(String name)
    {
-      return parsers.get(name.toUpperCase());
+      return parsers.get(name);
+   }
+
+   public Set<String> getHeaderNames()
+   {
+      return Collections.unmodifiableSet(parsers.keySet());
    }
 
 }
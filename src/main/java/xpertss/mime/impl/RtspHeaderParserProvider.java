@@ -4,39 +4,46 @@ import xpertss.mime.Header;
 import xpertss.mime.HeaderParser;
 import xpertss.mime.spi.HeaderParserProvider;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * A collection of headers found in the Rtsp specification.
  */
 public class RtspHeaderParserProvider implements HeaderParserProvider {
 
-   private Map<String,HeaderParser> parsers = new HashMap<String,HeaderParser>();
+   private final Map<String,HeaderParser> parsers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
 
    // RTSP Headers not already defined in HTTP
    public RtspHeaderParserProvider()
    {
-      parsers.put("BANDWIDTH",            new SimpleHeaderParser("Bandwidth", Header.Type.Request));
-      parsers.put("BLOCKSIZE",            new SimpleHeaderParser("Blocksize", Header.Type.Request));
-      parsers.put("CONFERENCE",           new SimpleHeaderParser("Conference", Header.Type.Request));
-      parsers.put("CONTENT-BASE",         new SimpleHeaderParser("Content-Base", Header.Type.Entity));
-      parsers.put("CSEQ",                 new SimpleHeaderParser("CSeq", Header.Type.General));
-      parsers.put("PROXY-REQUIRE",        new SimpleHeaderParser("Proxy-Require", Header.Type.Request));
-      parsers.put("PUBLIC",               new ComplexHeaderParser("Public", Header.Type.Response));
-      parsers.put("REQUIRE",              new SimpleHeaderParser("Require", Header.Type.Request));
-      parsers.put("RTP-INFO",             new ComplexHeaderParser("RTP-Info", Header.Type.Response));
-      parsers.put("SCALE",                new SimpleHeaderParser("Scale", Header.Type.General));
-      parsers.put("SPEED",                new SimpleHeaderParser("Speed", Header.Type.General));
-      parsers.put("SESSION",              new SimpleHeaderParser("Session", Header.Type.General));
-      parsers.put("TIMESTAMP",            new SimpleHeaderParser("Timestamp", Header.Type.General));
-      parsers.put("TRANSPORT",            new ComplexHeaderParser("Transport", Header.Type.General));
-      parsers.put("UNSUPPORTED",          new SimpleHeaderParser("Unsupported", Header.Type.Response));
+      parsers.put("Bandwidth",            new SimpleHeaderParser("Bandwidth", Header.Type.Request));
+      parsers.put("Blocksize",            new SimpleHeaderParser("Blocksize", Header.Type.Request));
+      parsers.put("Conference",           new SimpleHeaderParser("Conference", Header.Type.Request));
+      parsers.put("Content-Base",         new SimpleHeaderParser("Content-Base", Header.Type.Entity));
+      parsers.put("CSeq",                 new SimpleHeaderParser("CSeq", Header.Type.General));
+      parsers.put("Proxy-Require",        new SimpleHeaderParser("Proxy-Require", Header.Type.Request));
+      parsers.put("Public",               new ComplexHeaderParser("Public", Header.Type.Response));
+      parsers.put("Require",              new SimpleHeaderParser("Require", Header.Type.Request));
+      parsers.put("RTP-Info",             new ComplexHeaderParser("RTP-Info", Header.Type.Response));
+      parsers.put("Scale",                new SimpleHeaderParser("Scale", Header.Type.General));
+      parsers.put("Speed",                new SimpleHeaderParser("Speed", Header.Type.General));
+      parsers.put("Session",              new SimpleHeaderParser("Session", Header.Type.General));
+      parsers.put("Timestamp",            new SimpleHeaderParser("Timestamp", Header.Type.General));
+      parsers.put("Transport",            new ComplexHeaderParser("Transport", Header.Type.General));
+      parsers.put("Unsupported",          new SimpleHeaderParser("Unsupported", Header.Type.Response));
    }
 
    public HeaderParser create(String name)
    {
-      return parsers.get(name.toUpperCase());
+      return parsers.get(name);
+   }
+
+   public Set<String> getHeaderNames()
+   {
+      return Collections.unmodifiableSet(parsers.keySet());
    }
 
 }
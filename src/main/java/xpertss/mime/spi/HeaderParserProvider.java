@@ -7,6 +7,8 @@ package xpertss.mime.spi;
 
 import xpertss.mime.HeaderParser;
 
+import java.util.Set;
+
 /**
  * Service provider interface defining a means to locate HeaderParser's capable
  * of parsing named header values.
@@ -22,4 +24,16 @@ public interface HeaderParserProvider {
     */
    public HeaderParser create(String name);
 
+   /**
+    * Return the canonical names of the headers this provider supports. The
+    * names are used to build a lookup table once rather than consulting the
+    * providers for each header parsed. Providers which cannot enumerate their
+    * headers may return {@code null} in which case they will be consulted for
+    * any header not found in the table.
+    */
+   public default Set<String> getHeaderNames()
+   {
+      return null;
+   }
+
 }
@@ -26,6 +26,61 @@ public final class OptionalSocketOptions {
    public static final SocketOption<Integer> TCP_BACKLOG =
       new StdSocketOption<Integer>("TCP_BACKLOG", Integer.class);
 
+   /**
+    * A socket option which limits the number of bytes a session will consume
+    * from its socket in response to a single readiness event before yielding
+    * to the other sessions serviced by the same reactor.
+    */
+   public static final SocketOption<Integer> SO_READ_BUDGET =
+      new StdSocketOption<Integer>("SO_READ_BUDGET", Integer.class);
+
+   /**
+    * A socket option which limits the number of packets a session will
+    * dispatch in response to a single readiness event before yielding to the
+    * other sessions serviced by the same reactor.
+    */
+   public static final SocketOption<Integer> SO_PACKET_BUDGET =
+      new StdSocketOption<Integer>("SO_PACKET_BUDGET", Integer.class);
+
+   /**
+    * A socket option which dictates whether a session should use direct
+    * rather than heap buffers for its socket I/O. This must be set before the
+    * session is connected. A direct read buffer is dedicated to the session
+    * for its lifetime whereas heap read buffers are borrowed from the reactor
+    * only while needed.
+    */
+   public static final SocketOption<Boolean> SO_DIRECT_BUFFER =
+      new StdSocketOption<Boolean>("SO_DIRECT_BUFFER", Boolean.class);
+
+   /**
+    * A socket option which dictates the number of bytes that may be queued
+    * for writing before a session is considered unwritable.
+    */
+   public static final SocketOption<Integer> SO_WRITE_HIGH_WATERMARK =
+      new StdSocketOption<Integer>("SO_WRITE_HIGH_WATERMARK", Integer.class);
+
+   /**
+    * A socket option which dictates the number of bytes the write queue of an
+    * unwritable session must drain to before it is once again writable.
+    */
+   public static final SocketOption<Integer> SO_WRITE_LOW_WATERMARK =
+      new StdSocketOption<Integer>("SO_WRITE_LOW_WATERMARK", Integer.class);
+
+   /**
+    * A socket option which dictates how a session treats writes made while
+    * it is unwritable.
+    */
+   public static final SocketOption<WritePolicy> SO_WRITE_POLICY =
+      new StdSocketOption<WritePolicy>("SO_WRITE_POLICY", WritePolicy.class);
+
+   /**
+    * A socket option which dictates the size of the kernel receive buffer of
+    * the datagram sockets a session uses for UDP media. A larger buffer lets
+    * the kernel absorb bursts while the reactor is busy with other sessions.
+    */
+   public static final SocketOption<Integer> SO_DATAGRAM_RCVBUF =
+      new StdSocketOption<Integer>("SO_DATAGRAM_RCVBUF", Integer.class);
+
 
    private static class StdSocketOption<T> implements SocketOption<T> {
       private final String name;
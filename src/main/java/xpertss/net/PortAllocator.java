@@ -0,0 +1,95 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.net;
+
+import xpertss.io.NIOUtils;
+import xpertss.lang.Numbers;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates pairs of non-blocking datagram channels bound to consecutive
+ * ports, the first of which is even, from a configured range as required
+ * for RTP and RTCP.
+ * <p/>
+ * Allocation rotates through the range so that recently released ports are
+ * not immediately reused.
+ */
+public class PortAllocator {
+
+   private final AtomicInteger next = new AtomicInteger();
+   private final int lower;
+   private final int upper;
+
+   /**
+    * Create a port allocator which allocates pairs from the given inclusive
+    * range of ports.
+    *
+    * @throws IllegalArgumentException if the range does not contain at least
+    *          one even/odd pair of valid ports
+    */
+   public PortAllocator(int lower, int upper)
+   {
+      this.lower = Numbers.within(1, 65534, lower + (lower & 1), "lower port out of range");
+      this.upper = Numbers.within(this.lower + 1, 65535, upper, "upper port out of range");
+   }
+
+
+   public int getLower()
+   {
+      return lower;
+   }
+
+   public int getUpper()
+   {
+      return upper;
+   }
+
+
+   /**
+    * Bind and return a pair of non-blocking datagram channels. The first is
+    * bound to an even port and the second to the port above it.
+    *
+    * @throws BindException if no free pair could be found in the range
+    * @throws IOException if an I/O error occurs opening a channel
+    */
+   public DatagramChannel[] allocate() throws IOException
+   {
+      int pairs = (upper - lower + 1) / 2;
+      for(int i = 0; i < pairs; i++) {
+         int port = lower + (Math.floorMod(next.getAndIncrement(), pairs) * 2);
+         DatagramChannel rtp = bind(port);
+         if(rtp != null) {
+            DatagramChannel rtcp = bind(port + 1);
+            if(rtcp != null) return new DatagramChannel[] { rtp, rtcp };
+            NIOUtils.close(rtp);
+         }
+      }
+      throw new BindException("no free port pair between " + lower + " and " + upper);
+   }
+
+
+   private static DatagramChannel bind(int port) throws IOException
+   {
+      DatagramChannel channel = DatagramChannel.open();
+      try {
+         channel.configureBlocking(false);
+         channel.bind(new InetSocketAddress(port));
+         return channel;
+      } catch(BindException e) {
+         NIOUtils.close(channel);
+         return null;
+      } catch(IOException | RuntimeException e) {
+         NIOUtils.close(channel);
+         throw e;
+      }
+   }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.net;
+
+/**
+ * An enumeration of the actions a session may take when data is written to
+ * it while its write queue is above its high watermark.
+ */
+public enum WritePolicy {
+
+   /**
+    * Silently discard the data and report it was not queued.
+    */
+   Drop,
+
+   /**
+    * Block the writing thread until the write queue has drained below its
+    * low watermark.
+    */
+   Block,
+
+   /**
+    * Reject the data by throwing an exception.
+    */
+   Fail
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/26 1:40 PM
+ */
+package xpertss.nio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A simple pool of byte buffers organized into power of two size classes.
+ * <p/>
+ * Buffers obtained via {@link #acquire(int)} remain owned by the caller until
+ * they are explicitly returned via {@link #release(ByteBuffer)}. A buffer must
+ * not be used after it has been released nor released more than once. Buffers
+ * larger than the largest size class are allocated on demand and are simply
+ * discarded when released.
+ */
+public class BufferPool {
+
+   private static final int MIN_SHIFT = 8;     // 256 bytes
+   private static final int MAX_SHIFT = 16;    // 64k bytes
+
+   private final ArrayDeque<ByteBuffer>[] classes;
+   private final boolean direct;
+   private final int retain;
+
+   /**
+    * Create a heap buffer pool which retains at most 32 idle buffers per size
+    * class.
+    */
+   public BufferPool()
+   {
+      this(false, 32);
+   }
+
+   /**
+    * Create a buffer pool which retains at most the given number of idle
+    * buffers per size class.
+    *
+    * @param direct Whether the pool should allocate direct buffers
+    * @param retain The maximum number of idle buffers to retain per size class
+    */
+   @SuppressWarnings("unchecked")
+   public BufferPool(boolean direct, int retain)
+   {
+      this.direct = direct;
+      this.retain = retain;
+      this.classes = new ArrayDeque[MAX_SHIFT - MIN_SHIFT + 1];
+      for(int i = 0; i < classes.length; i++) classes[i] = new ArrayDeque<>();
+   }
+
+
+   /**
+    * Obtain a buffer whose position is zero and whose limit is the requested
+    * size. The buffer's capacity may exceed the requested size.
+    */
+   public ByteBuffer acquire(int size)
+   {
+      if(size < 0) throw new IllegalArgumentException("size must not be negative");
+      int index = indexFor(size);
+      if(index < classes.length) {
+         ByteBuffer buf;
+         synchronized(this) {
+            buf = classes[index].pollFirst();
+         }
+         if(buf == null) buf = allocate(1 << (index + MIN_SHIFT));
+         buf.clear().limit(size);
+         return buf;
+      }
+      return allocate(size);
+   }
+
+   /**
+    * Return a buffer previously obtained from this pool.
+    */
+   public void release(ByteBuffer buf)
+   {
+      if(buf != null && buf.isDirect() == direct) {
+         int capacity = buf.capacity();
+         if(Integer.bitCount(capacity) == 1) {
+            int index = Integer.numberOfTrailingZeros(capacity) - MIN_SHIFT;
+            if(index >= 0 && index < classes.length) {
+               synchronized(this) {
+                  if(classes[index].size() < retain) classes[index].offerFirst(buf);
+               }
+            }
+         }
+      }
+   }
+
+
+   /**
+    * Returns true if this pool allocates direct buffers.
+    */
+   public boolean isDirect()
+   {
+      return direct;
+   }
+
+
+
+
+   private ByteBuffer allocate(int capacity)
+   {
+      return (direct) ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+   }
+
+   private static int indexFor(int size)
+   {
+      if(size <= (1 << MIN_SHIFT)) return 0;
+      return (32 - Integer.numberOfLeadingZeros(size - 1)) - MIN_SHIFT;
+   }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.nio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A ring of direct buffers into which the datagram endpoints serviced by a
+ * reactor receive a batch of packets before delivering them. The ring is
+ * shared by every endpoint on the reactor so it may only be used on the
+ * selector thread, and a batch must be delivered before the next receive
+ * into the ring.
+ * <p/>
+ * Each slot has one byte more than {@link #SLOT_SIZE} so a receive which
+ * fills a slot identifies a datagram that was truncated.
+ */
+public class DatagramRing {
+
+   /**
+    * The largest datagram a slot holds, larger than any RTP packet which fits
+    * a typical MTU.
+    */
+   public static final int SLOT_SIZE = 2048;
+
+   private final ByteBuffer[] slots;
+   private final ByteBuffer[] views;
+
+   DatagramRing(int size)
+   {
+      slots = new ByteBuffer[size];
+      views = new ByteBuffer[size];
+      for(int i = 0; i < size; i++) {
+         slots[i] = ByteBuffer.allocateDirect(SLOT_SIZE + 1);
+         views[i] = slots[i].asReadOnlyBuffer();
+      }
+   }
+
+
+   /**
+    * Returns the number of slots in the ring.
+    */
+   public int size()
+   {
+      return slots.length;
+   }
+
+   /**
+    * Returns the writable buffer for the given slot.
+    */
+   public ByteBuffer slot(int index)
+   {
+      return slots[index];
+   }
+
+   /**
+    * Returns a read-only view of the datagram received into the given slot,
+    * which has been flipped since the receive.
+    */
+   public ByteBuffer packet(int index)
+   {
+      ByteBuffer view = views[index];
+      view.limit(slots[index].limit()).position(0);
+      return view;
+   }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/26 10:02 AM
+ */
+package xpertss.nio;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue backed by a ring
+ * array.
+ * <p/>
+ * Producers claim a slot by advancing the tail with a CAS and then publish
+ * their element into it. The single consumer reads slots in order, treating
+ * an unpublished slot as the end of the queue. Because of this a claimed but
+ * not yet published slot may cause {@link #poll()} to return {@code null}
+ * while {@link #isEmpty()} returns {@code false}.
+ * <p/>
+ * Only one thread may call {@link #poll()} or {@link #drain(Consumer, int)}.
+ */
+final class MpscQueue<E> {
+
+   private final AtomicLong tail = new AtomicLong();
+   private final AtomicReferenceArray<E> buffer;
+   private final int mask;
+
+   private volatile long head;
+
+   MpscQueue(int capacity)
+   {
+      if(capacity < 2 || capacity > (1 << 30))
+         throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+      int size = Integer.highestOneBit(capacity - 1) << 1;
+      this.buffer = new AtomicReferenceArray<>(size);
+      this.mask = size - 1;
+   }
+
+
+   /**
+    * Append the given element to the tail of the queue returning {@code true}
+    * if it was added, or {@code false} if the queue is full. This may be called
+    * by any thread.
+    */
+   public boolean offer(E e)
+   {
+      if(e == null) throw new NullPointerException("e can not be null");
+      long t;
+      do {
+         t = tail.get();
+         if(t - head > mask) return false;
+      } while(!tail.compareAndSet(t, t + 1));
+      buffer.lazySet((int) t & mask, e);
+      return true;
+   }
+
+   /**
+    * Remove and return the element at the head of the queue or {@code null}
+    * if no published element is available. Consumer thread only.
+    */
+   public E poll()
+   {
+      long h = head;
+      int index = (int) h & mask;
+      E e = buffer.get(index);
+      if(e != null) {
+         buffer.lazySet(index, null);
+         head = h + 1;
+      }
+      return e;
+   }
+
+   /**
+    * Remove up to limit elements from the head of the queue passing each to
+    * the given consumer and returning the number removed. Consumer thread only.
+    */
+   public int drain(Consumer<? super E> consumer, int limit)
+   {
+      long h = head;
+      int count = 0;
+      while(count < limit) {
+         int index = (int) h & mask;
+         E e = buffer.get(index);
+         if(e == null) break;
+         buffer.lazySet(index, null);
+         head = ++h;
+         count++;
+         consumer.accept(e);
+      }
+      return count;
+   }
+
+
+   /**
+    * Returns true if no slots have been claimed beyond those consumed.
+    */
+   public boolean isEmpty()
+   {
+      return tail.get() == head;
+   }
+
+   /**
+    * Returns an estimate of the number of elements in the queue.
+    */
+   public int size()
+   {
+      return (int) Math.max(0, tail.get() - head);
+   }
+
+   /**
+    * Returns the capacity of this queue.
+    */
+   public int capacity()
+   {
+      return mask + 1;
+   }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.nio;
+
+/**
+ * A clock which a reactor advances once per pass through its loop so that
+ * the selectables it services can timestamp their I/O and timeouts without
+ * reading the system clock on every read and write.
+ * <p/>
+ * Readings are only current on the reactor's own thread, and even there they
+ * trail real time by however long the current pass has taken to process its
+ * events. A reactor blocked in select does not advance its clock at all so
+ * other threads should not rely on it.
+ * <p/>
+ * A clock may be made precise, in which case every reading is taken from the
+ * system clock. This is intended for latency measurement where the accuracy
+ * of each timestamp matters more than the cost of obtaining it.
+ */
+public class NioClock {
+
+   private static final long RESYNC = 1000000000L;   // wall clock resync interval in nanos
+
+   /**
+    * A clock which is always precise.
+    */
+   public static final NioClock SYSTEM = new NioClock(true);
+
+   private volatile boolean precise;
+   private volatile long nanos = System.nanoTime();
+   private volatile long millis = System.currentTimeMillis();
+   private long synced = nanos;
+   private long base = millis;
+
+   NioClock()
+   {
+      this(false);
+   }
+
+   private NioClock(boolean precise)
+   {
+      this.precise = precise;
+   }
+
+
+   /**
+    * Returns the time in milliseconds since the epoch as of the last time
+    * this clock was advanced, or the current time if it is precise.
+    */
+   public long currentTimeMillis()
+   {
+      return (precise) ? System.currentTimeMillis() : millis;
+   }
+
+   /**
+    * Returns the value of {@link System#nanoTime()} as of the last time this
+    * clock was advanced, or its current value if this clock is precise.
+    */
+   public long nanoTime()
+   {
+      return (precise) ? System.nanoTime() : nanos;
+   }
+
+
+   /**
+    * Set whether this clock reads the system clock on every call rather than
+    * returning the time at which it was last advanced.
+    *
+    * @throws UnsupportedOperationException if this is the system clock
+    */
+   public void setPrecise(boolean precise)
+   {
+      if(this == SYSTEM) throw new UnsupportedOperationException("system clock is always precise");
+      this.precise = precise;
+   }
+
+   /**
+    * Returns true if this clock reads the system clock on every call.
+    */
+   public boolean isPrecise()
+   {
+      return precise;
+   }
+
+
+   /**
+    * Advance this clock to the current time. Only the monotonic clock is read
+    * on every call, wall clock time is derived from it and resynchronized once
+    * a second.
+    */
+   void advance()
+   {
+      long now = System.nanoTime();
+      if(now - synced >= RESYNC) {
+         base = System.currentTimeMillis();
+         synced = now;
+      }
+      nanos = now;
+      millis = base + (now - synced) / 1000000L;
+   }
+
+}
@@ -11,43 +11,131 @@ import xpertss.threads.Threads;
 
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class NioReactor implements Runnable, NioService {
 
-   private final List<NioAction> actions = Collections.synchronizedList(new ArrayList<NioAction>());
+   private final AtomicBoolean parked = new AtomicBoolean();
+   private final BufferPool buffers = new BufferPool();
+   private final NioClock clock = new NioClock();
+   private final AtomicInteger sessions = new AtomicInteger();
+   private DatagramRing ring;
+   private final TimingWheel timers = new TimingWheel(10, TimeUnit.MILLISECONDS, 512);
+   private final Consumer<TimingWheel.Entry> expired = this::expire;
+   private final Consumer<NioAction> executor = this::executeNow;
+   private final MpscQueue<NioAction> actions;
+   private volatile Selector selector;
    private volatile Thread thread;
+   private volatile int load;
    private NioProvider provider;
-   private Selector selector;
 
    public NioReactor(NioProvider provider)
+   {
+      this(provider, 4096);
+   }
+
+   /**
+    * Create a reactor whose pending action queue is bounded to the given
+    * capacity (rounded up to a power of two).
+    */
+   public NioReactor(NioProvider provider, int capacity)
    {
       this.provider = Objects.notNull(provider, "provider");
+      this.actions = new MpscQueue<>(capacity);
    }
 
 
    public void execute(NioAction action)
    {
-      synchronized(this) {
-         if(thread != Thread.currentThread() || action instanceof DeferredNioAction) {
-            if(thread == null) activate();
-            actions.add(action);
-            selector.wakeup();
-         } else {
-            executeNow(action);
+      Objects.notNull(action, "action");
+      if(thread != Thread.currentThread()) {
+         while(!actions.offer(action)) {
+            // Queue is full, give the reactor a chance to drain it. It may have
+            // passivated with actions still queued so start it if necessary
+            ensureActive();
+            wakeup();
+            Thread.yield();
          }
+         ensureActive();
+         wakeup();
+      } else if(action instanceof DeferredNioAction) {
+         // We are the consumer so make room ourselves if necessary
+         while(!actions.offer(action)) actions.drain(executor, actions.capacity());
+      } else {
+         executeNow(action);
       }
    }
 
+   public NioTimeout schedule(NioAction action, long delay, TimeUnit unit)
+   {
+      // The clock only advances while the reactor runs, another thread could
+      // be reading it long after it was last advanced by a parked reactor
+      boolean local = (thread == Thread.currentThread());
+      long now = (local) ? clock.nanoTime() : System.nanoTime();
+      final TimingWheel.Entry entry = timers.newEntry(Objects.notNull(action, "action"),
+                                                      now + unit.toNanos(delay));
+      if(local) {
+         timers.add(entry);
+      } else {
+         execute(new NioAction() {
+            public void execute(Selector selector) { timers.add(entry); }
+            public Selectable getSelectable() { return entry.getAction().getSelectable(); }
+         });
+      }
+      return entry;
+   }
+
    public boolean isSelectorThread()
    {
       return Thread.currentThread() == thread;
    }
 
+   public int getLoad()
+   {
+      return load;
+   }
+
+   public BufferPool getBufferPool()
+   {
+      return buffers;
+   }
+
+   public DatagramRing getDatagramRing()
+   {
+      // Only reactors servicing datagram endpoints pay for the direct memory
+      if(ring == null) ring = new DatagramRing(32);
+      return ring;
+   }
+
+   public NioClock getClock()
+   {
+      return clock;
+   }
+
+   public void detach()
+   {
+      sessions.decrementAndGet();
+   }
+
+   /**
+    * Returns the number of sessions assigned to this reactor by its group
+    * which have not yet detached. Unlike {@link #getLoad()} this is current
+    * the moment a session is assigned, before it has registered a channel.
+    */
+   public int getSessionCount()
+   {
+      return sessions.get();
+   }
+
+   void attach()
+   {
+      sessions.incrementAndGet();
+   }
+
 
 
    /**
@@ -98,12 +186,44 @@ public class NioReactor implements Runnable, NioService {
    }
 
 
-   private void passivate()
+   private void expire(TimingWheel.Entry entry)
+   {
+      executeNow(entry.getAction());
+   }
+
+   private void wakeup()
+   {
+      // Only pay for the wakeup syscall if the reactor is blocked in select
+      if(parked.compareAndSet(true, false)) {
+         Selector selector = this.selector;
+         if(selector != null) selector.wakeup();
+      }
+   }
+
+   private boolean passivate()
    {
       synchronized(this) {
+         // Producers enqueue before they check the thread, so clear the thread
+         // first and then recheck the queue to ensure nothing is stranded
          thread = null;
+         if(!actions.isEmpty()) {
+            thread = Thread.currentThread();
+            return false;
+         }
+         load = 0;
+         timers.clear();
          NIOUtils.close(selector);
          selector = null;
+         return true;
+      }
+   }
+
+   private void ensureActive()
+   {
+      if(thread == null) {
+         synchronized(this) {
+            if(thread == null) activate();
+         }
       }
    }
 
@@ -117,13 +237,29 @@ public class NioReactor implements Runnable, NioService {
 
    public void run()
    {
+      clock.advance();
       do {
          try {
 
-            int count = selector.select(10);
+            // Poll first, which also flushes cancelled keys so a reactor whose
+            // last channel was just closed does not block with nothing registered.
+            // Then block until the next timer deadline, or indefinitely if none.
+            parked.set(true);
+            int count = selector.selectNow();
+            if(count == 0 && actions.isEmpty() && !selector.keys().isEmpty()) {
+               long delay = timers.nextDelay(clock.nanoTime());
+               if(delay < 0) {
+                  count = selector.select();
+               } else if(delay > 0) {
+                  count = selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay + 999999)));
+               }
+            }
+            parked.set(false);
+            clock.advance();
 
-            // Now execute any pending NIO Actions
-            while(actions.size() > 0) executeNow(actions.remove(0));
+            // Now execute the batch of pending NIO Actions, anything enqueued
+            // while we drain will be picked up on the next pass
+            actions.drain(executor, actions.size());
 
             // Process NIO events
             if(count > 0) {
@@ -158,20 +294,14 @@ public class NioReactor implements Runnable, NioService {
             }
 
 
-            // Now check the status of all user sockets
-            Set<SelectionKey> keys = selector.keys();
-            for(SelectionKey key : keys) {
-               if(key.isValid() && key.attachment() instanceof Checkable) {
-                  Checkable session = (Checkable) key.attachment();
-                  try { session.handleCheckup(); } catch(Exception ex) { session.shutdown(ex); }
-               }
-            }
+            // Now execute any timers whose deadline has passed
+            timers.advance(clock.nanoTime(), expired);
+            load = selector.keys().size();
 
          } catch(Exception e) {
             provider.serviceException(e);
          }
-      } while(!selector.keys().isEmpty() || !actions.isEmpty());
-      passivate();
+      } while(!selector.keys().isEmpty() || !actions.isEmpty() || !passivate());
    }
 
 
@@ -0,0 +1,156 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/26 9:12 AM
+ */
+package xpertss.nio;
+
+import xpertss.lang.Numbers;
+import xpertss.lang.Objects;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A group of reactors, each with its own selector thread, across which
+ * sessions may be distributed so that the work of a large number of them
+ * is not constrained to a single core.
+ * <p/>
+ * Each call to {@link #next()} assigns a reactor according to the group's
+ * balancing {@link Policy}. A session should use the service it is assigned
+ * for its entire lifetime.
+ */
+public class NioReactorGroup {
+
+   /**
+    * The policy used to assign reactors to new sessions.
+    */
+   public enum Policy {
+
+      /**
+       * Assign reactors in turn regardless of the load they carry.
+       */
+      RoundRobin,
+
+      /**
+       * Assign the reactor which currently has the fewest assigned sessions
+       * that have not yet detached. Sessions are counted when they are
+       * assigned so a burst of sessions opened together is spread across
+       * the group. Ties are broken in round robin order.
+       */
+      LeastLoaded
+
+   }
+
+
+   private final AtomicInteger counter = new AtomicInteger();
+   private final NioReactor[] reactors;
+   private volatile Policy policy = Policy.RoundRobin;
+
+   public NioReactorGroup(NioProvider provider, int count)
+   {
+      Objects.notNull(provider, "provider");
+      reactors = new NioReactor[Numbers.gt(0, count, "count must be positive")];
+      for(int i = 0; i < reactors.length; i++) reactors[i] = new NioReactor(provider);
+   }
+
+
+
+   /**
+    * Returns the service the next session should be assigned to. The session
+    * must {@link NioService#detach() detach} from it once it has closed.
+    */
+   public NioService next()
+   {
+      int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+      NioReactor result = reactors[start % reactors.length];
+      if(policy == Policy.LeastLoaded) {
+         for(int i = 1; i < reactors.length; i++) {
+            NioReactor candidate = reactors[(start + i) % reactors.length];
+            if(candidate.getSessionCount() < result.getSessionCount()) result = candidate;
+         }
+      }
+      result.attach();
+      return result;
+   }
+
+
+   /**
+    * Set the policy used to assign reactors to new sessions.
+    */
+   public void setPolicy(Policy policy)
+   {
+      this.policy = Objects.notNull(policy, "policy");
+   }
+
+   /**
+    * Returns the policy used to assign reactors to new sessions.
+    */
+   public Policy getPolicy()
+   {
+      return policy;
+   }
+
+
+   /**
+    * Returns the number of reactors in this group.
+    */
+   public int size()
+   {
+      return reactors.length;
+   }
+
+   /**
+    * Returns an unmodifiable list of the services in this group. This may be
+    * used to monitor the load each is carrying.
+    */
+   public List<NioService> getServices()
+   {
+      return Collections.<NioService>unmodifiableList(Arrays.asList(reactors));
+   }
+
+
+
+
+   /**
+    * Returns true if any reactor in this group is active, false otherwise.
+    */
+   public boolean isActive()
+   {
+      for(NioReactor reactor : reactors) {
+         if(reactor.isActive()) return true;
+      }
+      return false;
+   }
+
+   /**
+    * Waits for all the reactors in this group to shutdown.
+    */
+   public void await()
+   {
+      for(NioReactor reactor : reactors) reactor.await();
+   }
+
+   /**
+    * Wait for the specified amount of time for all the reactors in this group
+    * to shutdown. This will return false if this returned because it timed out
+    * before the reactors completely shutdown, otherwise it will return true.
+    *
+    * @param timeout the time to wait
+    * @param unit the unit the timeout value is measured with
+    * @return True if the reactors shutdown within the allotted time
+    */
+   public boolean await(long timeout, TimeUnit unit)
+   {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      for(NioReactor reactor : reactors) {
+         long remaining = Math.max(0, deadline - System.nanoTime());
+         if(!reactor.await(remaining, TimeUnit.NANOSECONDS)) return false;
+      }
+      return true;
+   }
+
+}
@@ -5,10 +5,62 @@
  */
 package xpertss.nio;
 
+import java.util.concurrent.TimeUnit;
+
 public interface NioService {
 
    public void execute(NioAction action);
 
+   /**
+    * Schedule the given action to be executed on the selector thread once the
+    * specified delay has elapsed. Deadlines are tracked with a coarse timer
+    * and may fire up to one timer tick late. If the action throws an exception
+    * its selectable will be shutdown exactly as if it had been executed.
+    * <p/>
+    * Scheduled actions do not keep the service active. They are discarded if
+    * the service shuts down because it no longer has any registered channels.
+    *
+    * @param action The action to execute
+    * @param delay The delay before executing the action
+    * @param unit The unit the delay is measured in
+    * @return A handle that may be used to cancel the action
+    */
+   public NioTimeout schedule(NioAction action, long delay, TimeUnit unit);
+
    public boolean isSelectorThread();
 
+   /**
+    * Returns the number of channels currently registered with this service.
+    * This is a snapshot taken by the selector thread and is intended as a
+    * measure of the load the service is carrying.
+    */
+   public int getLoad();
+
+   /**
+    * Returns a pool of buffers shared by the selectables serviced by this
+    * service.
+    */
+   public BufferPool getBufferPool();
+
+   /**
+    * Returns a ring of direct buffers shared by the datagram endpoints this
+    * service handles. It may only be used on the selector thread.
+    */
+   public DatagramRing getDatagramRing();
+
+   /**
+    * Returns a clock advanced by the selector thread once per pass through
+    * its loop. It is only meaningful on the selector thread where it avoids
+    * a system call per reading.
+    */
+   public NioClock getClock();
+
+   /**
+    * Notify this service that a session assigned to it by a balancing
+    * {@link NioReactorGroup} has closed, so it is no longer counted against
+    * the service when assigning new sessions. A session must call this at
+    * most once.
+    */
+   public void detach();
+
 }
@@ -6,16 +6,29 @@
 package xpertss.nio;
 
 /**
+ * Counts the bytes transferred in one direction over a channel along with
+ * the time of the most recent transfer, as read from the given clock.
  */
 public class NioStats {
 
    private long time = System.currentTimeMillis();
+   private final NioClock clock;
    private long count;
 
+   public NioStats()
+   {
+      this(NioClock.SYSTEM);
+   }
+
+   public NioStats(NioClock clock)
+   {
+      this.clock = clock;
+   }
+
    public void record(long amount)
    {
       if(amount > 0) {
-         time = System.currentTimeMillis();
+         time = clock.currentTimeMillis();
          count += amount;
       }
    }
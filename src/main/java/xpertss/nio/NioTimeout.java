@@ -0,0 +1,30 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/26 11:20 AM
+ */
+package xpertss.nio;
+
+/**
+ * A handle to an action scheduled for deferred execution on a reactor via
+ * {@link NioService#schedule(NioAction, long, java.util.concurrent.TimeUnit)}.
+ */
+public interface NioTimeout {
+
+   /**
+    * Cancel the scheduled action returning {@code true} if it was cancelled
+    * prior to its execution. This may be called from any thread.
+    */
+   public boolean cancel();
+
+   /**
+    * Returns true if the scheduled action was cancelled.
+    */
+   public boolean isCancelled();
+
+   /**
+    * Returns true if the scheduled action has been executed.
+    */
+   public boolean isExpired();
+
+}
@@ -8,8 +8,23 @@ package xpertss.nio;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+/**
+ * A NioWriter contributes its pending buffers to a gathering write. The
+ * buffers are written directly to the channel so writers should expose
+ * their data rather than copying it.
+ */
 public interface NioWriter {
 
-   public boolean writeTo(ByteBuffer dst) throws IOException;
+   /**
+    * Place this writer's pending buffers into the given array starting at
+    * the given offset returning the number of entries used. A writer must
+    * return zero if there is insufficient room for all of its buffers.
+    */
+   public int gather(ByteBuffer[] srcs, int offset) throws IOException;
+
+   /**
+    * Returns true once all of this writer's data has been written.
+    */
+   public boolean complete();
 
 }
@@ -0,0 +1,230 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/26 11:24 AM
+ */
+package xpertss.nio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel used by a reactor to track deadlines.
+ * <p/>
+ * Deadlines are rounded up to the wheel's tick and hashed into a bucket by
+ * their absolute tick. Advancing the wheel only visits the buckets for the
+ * ticks that have elapsed, so the cost is independent of the number of idle
+ * entries. Entries whose deadline is more than one rotation away simply
+ * remain in their bucket until the rotation that they are due.
+ * <p/>
+ * All methods other than {@link Entry#cancel()} must be called from the
+ * owning reactor thread. Cancelled entries are lazily unlinked when their
+ * bucket is next visited.
+ */
+final class TimingWheel {
+
+   private static final int PENDING = 0;
+   private static final int CANCELLED = 1;
+   private static final int EXPIRED = 2;
+
+   private final long origin = System.nanoTime();
+   private final Entry[] buckets;
+   private final long tickNanos;
+   private final int mask;
+
+   private long nextTick = Long.MAX_VALUE;
+   private long tick;
+   private int size;
+
+   TimingWheel(long tickDuration, TimeUnit unit, int wheelSize)
+   {
+      if(wheelSize < 2 || Integer.bitCount(wheelSize) != 1)
+         throw new IllegalArgumentException("wheelSize must be a power of two");
+      this.tickNanos = unit.toNanos(tickDuration);
+      if(tickNanos <= 0) throw new IllegalArgumentException("tickDuration must be positive");
+      this.buckets = new Entry[wheelSize];
+      this.mask = wheelSize - 1;
+   }
+
+
+   /**
+    * Create an entry which will execute the given action once the specified
+    * deadline (measured in {@link System#nanoTime()}) has passed. The entry
+    * must subsequently be {@link #add(Entry) added} to the wheel.
+    */
+   Entry newEntry(NioAction action, long deadline)
+   {
+      return new Entry(action, deadline);
+   }
+
+   /**
+    * Link the given entry into the wheel.
+    */
+   void add(Entry entry)
+   {
+      if(entry.state.get() != PENDING) return;
+      long due = Math.max(tick + 1, ceilTick(entry.deadline));
+      entry.due = due;
+      Entry head = buckets[(int) due & mask];
+      entry.next = head;
+      if(head != null) head.prev = entry;
+      buckets[(int) due & mask] = entry;
+      nextTick = Math.min(nextTick, due);
+      size++;
+   }
+
+
+   /**
+    * Advance the wheel to the given time passing each entry whose deadline
+    * has passed to the given consumer.
+    */
+   void advance(long now, Consumer<Entry> expired)
+   {
+      long target = floorTick(now);
+      if(target <= tick) return;
+      Entry due = null;
+      if(size > 0 && target >= nextTick) {
+         long count = Math.min(target - tick, buckets.length);
+         for(long t = tick + 1; t <= tick + count; t++) {
+            Entry entry = buckets[(int) t & mask];
+            while(entry != null) {
+               Entry next = entry.next;
+               if(entry.state.get() == CANCELLED) {
+                  unlink(entry);
+               } else if(entry.due <= target) {
+                  unlink(entry);
+                  entry.next = due;
+                  due = entry;
+               }
+               entry = next;
+            }
+         }
+         tick = target;
+         nextTick = computeNextTick();
+      } else {
+         tick = target;
+      }
+      // Expired entries are executed only once the wheel is consistent as
+      // their actions may well schedule new entries
+      while(due != null) {
+         Entry entry = due;
+         due = entry.next;
+         entry.next = null;
+         if(entry.state.compareAndSet(PENDING, EXPIRED)) expired.accept(entry);
+      }
+   }
+
+   /**
+    * Returns the number of nanoseconds until the next entry is due relative
+    * to the given time, zero if one is already due, or -1 if the wheel is
+    * empty.
+    */
+   long nextDelay(long now)
+   {
+      if(size == 0) return -1;
+      return Math.max(0, origin + nextTick * tickNanos - now);
+   }
+
+   /**
+    * Discard all entries.
+    */
+   void clear()
+   {
+      for(int i = 0; i < buckets.length; i++) {
+         for(Entry entry = buckets[i]; entry != null; entry = entry.next) {
+            entry.state.compareAndSet(PENDING, CANCELLED);
+         }
+         buckets[i] = null;
+      }
+      nextTick = Long.MAX_VALUE;
+      size = 0;
+   }
+
+   /**
+    * Returns the number of linked entries, including any cancelled entries
+    * which have not yet been unlinked.
+    */
+   int size()
+   {
+      return size;
+   }
+
+
+
+   private long computeNextTick()
+   {
+      if(size == 0) return Long.MAX_VALUE;
+      for(long t = tick + 1; t <= tick + buckets.length; t++) {
+         for(Entry entry = buckets[(int) t & mask]; entry != null; entry = entry.next) {
+            if(entry.due == t && entry.state.get() == PENDING) return t;
+         }
+      }
+      // Everything is more than a rotation away (or cancelled) so check
+      // back in one rotation
+      return tick + buckets.length;
+   }
+
+   private void unlink(Entry entry)
+   {
+      int index = (int) entry.due & mask;
+      if(entry.prev != null) entry.prev.next = entry.next;
+      else buckets[index] = entry.next;
+      if(entry.next != null) entry.next.prev = entry.prev;
+      entry.prev = entry.next = null;
+      size--;
+   }
+
+   private long floorTick(long time)
+   {
+      return (time - origin) / tickNanos;
+   }
+
+   private long ceilTick(long time)
+   {
+      return (time - origin + tickNanos - 1) / tickNanos;
+   }
+
+
+
+   static final class Entry implements NioTimeout {
+
+      private final AtomicInteger state = new AtomicInteger(PENDING);
+      private final NioAction action;
+      private final long deadline;
+
+      private Entry prev;
+      private Entry next;
+      private long due;
+
+      private Entry(NioAction action, long deadline)
+      {
+         this.action = action;
+         this.deadline = deadline;
+      }
+
+      NioAction getAction()
+      {
+         return action;
+      }
+
+      @Override
+      public boolean cancel()
+      {
+         return state.compareAndSet(PENDING, CANCELLED);
+      }
+
+      @Override
+      public boolean isCancelled()
+      {
+         return state.get() == CANCELLED;
+      }
+
+      @Override
+      public boolean isExpired()
+      {
+         return state.get() == EXPIRED;
+      }
+   }
+
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+/**
+ * An enumeration of the actions a player may take when a packet arrives while
+ * its consumer dispatch queue is full.
+ */
+public enum OverflowPolicy {
+
+   /**
+    * Discard the oldest queued packet to make room for the new one.
+    */
+   DropOldest,
+
+   /**
+    * Discard the new packet unless it carries keyframe or parameter set data,
+    * in which case the oldest queued packet is discarded instead. Packets on
+    * channels whose encoding is not recognized are never keyframes.
+    */
+   DropNonKeyframe,
+
+   /**
+    * Fail the session, disconnecting from the server.
+    */
+   Disconnect
+
+}
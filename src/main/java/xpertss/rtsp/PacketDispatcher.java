@@ -0,0 +1,141 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A bounded single producer single consumer ring which hands the packets of a
+ * session off the reactor thread. The reactor copies each packet into a slot
+ * and an executor task drains the ring in order, a batch at a time so sessions
+ * sharing an executor are serviced fairly.
+ * <p/>
+ * When the ring is full the producer may evict the oldest packet. To ensure a
+ * slot is never overwritten while it is being delivered the consumer announces
+ * the slot it intends to read before claiming it, and the producer discards the
+ * new packet rather than reuse a slot that is still being read.
+ */
+final class PacketDispatcher implements Runnable {
+
+   private static final int BATCH = 256;
+   private static final long IDLE = Long.MIN_VALUE;
+
+   private final AtomicBoolean scheduled = new AtomicBoolean();
+   private final AtomicLong tail = new AtomicLong();
+   private final AtomicLong claimed = new AtomicLong();
+   private final ObjIntConsumer<ByteBuffer> target;
+   private final OverflowPolicy policy;
+   private final Executor executor;
+   private final ByteBuffer[] slots;
+   private final int[] channels;
+   private final int mask;
+
+   private volatile long reading = IDLE;
+   private volatile long dropped;
+
+   PacketDispatcher(Executor executor, int capacity, OverflowPolicy policy, ObjIntConsumer<ByteBuffer> target)
+   {
+      int size = Integer.highestOneBit(capacity - 1) << 1;
+      this.executor = executor;
+      this.policy = policy;
+      this.target = target;
+      this.slots = new ByteBuffer[size];
+      this.channels = new int[size];
+      this.mask = size - 1;
+   }
+
+
+   /**
+    * Queue a copy of the given packet for delivery. Returns false if the ring
+    * is full and the policy is to disconnect.
+    */
+   boolean offer(int channelId, ByteBuffer data, Predicate<ByteBuffer> keyframe)
+   {
+      long t = tail.get();
+      if(t - claimed.get() >= slots.length) {
+         if(policy == OverflowPolicy.Disconnect) return false;
+         if(policy == OverflowPolicy.DropNonKeyframe && (keyframe == null || !keyframe.test(data))) {
+            dropped++;
+            return true;
+         }
+         long c = claimed.get();
+         if(t - c >= slots.length && claimed.compareAndSet(c, c + 1)) dropped++;
+      }
+      if(reading == t - slots.length) {
+         dropped++;
+         return true;
+      }
+
+      int index = (int) t & mask;
+      ByteBuffer slot = slots[index];
+      if(slot == null || slot.capacity() < data.remaining()) {
+         slots[index] = slot = ByteBuffer.allocate(Math.max(2048, data.remaining()));
+      }
+      slot.clear();
+      slot.put(data.duplicate()).flip();
+      channels[index] = channelId;
+      tail.lazySet(t + 1);
+
+      if(scheduled.compareAndSet(false, true)) schedule();
+      return true;
+   }
+
+
+   /**
+    * Returns the number of packets waiting to be delivered.
+    */
+   int getDepth()
+   {
+      return (int) Math.max(0, tail.get() - claimed.get());
+   }
+
+   /**
+    * Returns the number of packets discarded due to overflow.
+    */
+   long getDropped()
+   {
+      return dropped;
+   }
+
+
+
+   @Override
+   public void run()
+   {
+      for(int n = 0; n < BATCH; n++) {
+         long c = claimed.get();
+         if(c == tail.get()) break;
+         reading = c;
+         try {
+            if(claimed.compareAndSet(c, c + 1)) {
+               int index = (int) c & mask;
+               target.accept(slots[index], channels[index]);
+            }
+         } finally {
+            reading = IDLE;
+         }
+      }
+      scheduled.set(false);
+      if(getDepth() > 0 && scheduled.compareAndSet(false, true)) schedule();
+   }
+
+
+   private void schedule()
+   {
+      try {
+         executor.execute(this);
+      } catch(RuntimeException e) {
+         scheduled.set(false);
+         throw e;
+      }
+   }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import xpertss.mime.Header;
+import xpertss.mime.Headers;
+import xpertss.nio.BufferPool;
+
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static xpertss.io.Charsets.US_ASCII;
+
+/**
+ * Encodes requests as US-ASCII directly into pooled buffers. The parts of a
+ * request which rarely change over the life of a session, such as the
+ * method token, the request uri, and the User-Agent, are encoded once and
+ * copied as bytes thereafter.
+ * <p/>
+ * Header lines are cached by header instance so callers that reuse a parsed
+ * header, such as the Session header, pay to encode it only once.
+ * <p/>
+ * An encoder is not thread safe and is intended to be used exclusively by
+ * its session's reactor thread.
+ */
+class RequestEncoder {
+
+   private static final byte[][] METHODS = new byte[RtspMethod.values().length][];
+   static {
+      for(RtspMethod method : RtspMethod.values()) {
+         // GetParameter is sent as GET_PARAMETER
+         String token = method.name().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase();
+         METHODS[method.ordinal()] = (token + " ").getBytes(US_ASCII);
+      }
+   }
+   private static final byte[] VERSION = " RTSP/1.0\r\n".getBytes(US_ASCII);
+   private static final byte[] CSEQ = "CSeq: ".getBytes(US_ASCII);
+   private static final byte[] CRLF = "\r\n".getBytes(US_ASCII);
+
+   private static final int MAX_CACHED = 32;
+
+
+   private final Map<Header,byte[]> lines = new IdentityHashMap<>();
+   private final byte[] userAgent;
+
+   private URI uri;
+   private byte[] encodedUri;
+
+   RequestEncoder(String userAgent)
+   {
+      this.userAgent = ("User-Agent: " + userAgent + "\r\n").getBytes(US_ASCII);
+   }
+
+
+   /**
+    * Encode the given request with the specified sequence number into a buffer
+    * borrowed from the given pool. The caller is responsible for returning
+    * the buffer to the pool once it has been written.
+    */
+   ByteBuffer encode(RtspRequest request, URI uri, int sequence, BufferPool pool)
+   {
+      for(int size = 1024; ; size *= 2) {
+         ByteBuffer dst = pool.acquire(size);
+         try {
+            encode(request, uri, sequence, dst);
+            dst.flip();
+            return dst;
+         } catch(BufferOverflowException e) {
+            pool.release(dst);
+         }
+      }
+   }
+
+
+
+   private void encode(RtspRequest request, URI uri, int sequence, ByteBuffer dst)
+   {
+      dst.put(METHODS[request.getMethod().ordinal()]);
+      dst.put(uri(uri)).put(VERSION);
+
+      // The RTSP headers template places CSeq and User-Agent first
+      dst.put(CSEQ);
+      putInt(dst, sequence);
+      dst.put(CRLF);
+      Headers headers = request.getHeaders();
+      if(!headers.contains("User-Agent")) dst.put(userAgent);
+
+      for(Enumeration<Header> e = headers.headers(); e.hasMoreElements(); ) {
+         Header header = e.nextElement();
+         if(!"CSeq".equalsIgnoreCase(header.getName())) dst.put(line(header));
+      }
+      dst.put(CRLF);
+   }
+
+   private byte[] uri(URI target)
+   {
+      if(target != uri && !target.equals(uri)) {
+         encodedUri = target.toASCIIString().getBytes(US_ASCII);
+         uri = target;
+      }
+      return encodedUri;
+   }
+
+   private byte[] line(Header header)
+   {
+      byte[] line = lines.get(header);
+      if(line == null) {
+         if(lines.size() == MAX_CACHED) lines.clear();
+         lines.put(header, line = (header.toString() + "\r\n").getBytes(US_ASCII));
+      }
+      return line;
+   }
+
+   private static void putInt(ByteBuffer dst, int value)
+   {
+      // Sequence numbers are never negative
+      int divisor = 1;
+      while(value / divisor >= 10) divisor *= 10;
+      for(; divisor > 0; divisor /= 10) dst.put((byte) ('0' + (value / divisor) % 10));
+   }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+import xpertss.mime.Headers;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import static xpertss.io.Charsets.US_ASCII;
+
+/**
+ * An incremental RTSP response parser which operates directly on the bytes
+ * read from the socket. It accumulates the status line and header block in
+ * a reusable byte array and hands the header block to {@link Headers} which
+ * only parses individual header values as they are requested.
+ * <p/>
+ * A session only ever parses one response at a time so a single instance
+ * is reused for the life of the session.
+ */
+class ResponseParser {
+
+   private static final int MAX_LINES = 30;
+   private static final int MAX_LINE_LENGTH = 2048;
+   private static final int MAX_HEADER_LENGTH = 16384;
+
+   private byte[] buf = new byte[512];
+   private int length;
+   private int lineStart;
+   private int statusEnd = -1;
+   private int lines;
+
+
+   /**
+    * Consume bytes from the given buffer up to and including the blank line
+    * terminating the response's header block. Returns the response if the
+    * header block is complete or {@code null} if more data is needed.
+    *
+    * @throws ProtocolException if the response exceeds the parser's limits or
+    *          its status line is malformed
+    */
+   RtspResponse parse(ByteBuffer src) throws IOException
+   {
+      while(src.hasRemaining()) {
+         byte b = src.get();
+         if(b == '\n') {
+            int end = (length > lineStart && buf[length - 1] == '\r') ? length - 1 : length;
+            if(end == lineStart) {
+               if(lines == 0) throw new IOException("premature end of response");
+               try {
+                  return create(lineStart);
+               } finally {
+                  reset();
+               }
+            } else if(++lines > MAX_LINES) {
+               throw new ProtocolException("max number of lines exceeded");
+            }
+            if(statusEnd < 0) statusEnd = end;
+            append(b);
+            lineStart = length;
+         } else if(length - lineStart < MAX_LINE_LENGTH) {
+            append(b);
+         } else {
+            throw new ProtocolException("max line length exceeded");
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Discard any partially parsed response.
+    */
+   void reset()
+   {
+      length = lineStart = lines = 0;
+      statusEnd = -1;
+   }
+
+
+
+   private void append(byte b) throws ProtocolException
+   {
+      if(length == buf.length) {
+         if(length == MAX_HEADER_LENGTH) throw new ProtocolException("max header length exceeded");
+         byte[] grown = new byte[Math.min(length * 2, MAX_HEADER_LENGTH)];
+         System.arraycopy(buf, 0, grown, 0, length);
+         buf = grown;
+      }
+      buf[length++] = b;
+   }
+
+   private RtspResponse create(int headerEnd) throws ProtocolException
+   {
+      // RTSP/1.0 SP Status-Code SP Reason-Phrase
+      int pos = skip(0, false);
+      pos = skip(pos, true);
+      int code = 0, digits = 0;
+      for(; pos < statusEnd && buf[pos] >= '0' && buf[pos] <= '9'; pos++, digits++) {
+         code = code * 10 + (buf[pos] - '0');
+      }
+      if(digits != 3) throw new ProtocolException("malformed status line");
+      pos = skip(pos, true);
+      int end = statusEnd;
+      while(end > pos && isSpace(buf[end - 1])) end--;
+      if(end == pos) throw new ProtocolException("malformed status line");
+
+      RtspStatus status;
+      try {
+         status = RtspStatus.valueOf(code);
+      } catch(IllegalArgumentException e) {
+         throw new ProtocolException("unknown status code " + code);
+      }
+      String reason = new String(buf, pos, end - pos, US_ASCII);
+      int headerStart = statusEnd + 1;
+      while(headerStart < headerEnd && buf[headerStart - 1] != '\n') headerStart++;
+      return new RtspResponse(status, reason, Headers.create(buf, headerStart, headerEnd - headerStart));
+   }
+
+   private int skip(int pos, boolean space)
+   {
+      while(pos < statusEnd && isSpace(buf[pos]) == space) pos++;
+      return pos;
+   }
+
+   private static boolean isSpace(byte b)
+   {
+      return b == ' ' || b == '\t';
+   }
+
+}
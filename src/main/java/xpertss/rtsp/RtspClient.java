@@ -3,13 +3,16 @@ package xpertss.rtsp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xpertss.lang.Objects;
+import xpertss.net.PortAllocator;
 import xpertss.nio.NioProvider;
-import xpertss.nio.NioReactor;
+import xpertss.nio.NioReactorGroup;
+import xpertss.nio.NioService;
 import xpertss.threads.Threads;
 import xpertss.util.Version;
 import xpertss.utils.UserAgent;
 
 import java.net.URI;
+import java.util.List;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -21,14 +24,30 @@ public class RtspClient {
    private Logger log = LoggerFactory.getLogger(getClass());
 
    // Product name OS/version Java/version
-   private final NioReactor reactor;
+   private final NioReactorGroup reactors;
+   private volatile PortAllocator ports = new PortAllocator(50000, 59999);
    private ThreadFactory factory;
    private UserAgent userAgent;
 
 
+   /**
+    * Create a client whose sessions are distributed across one reactor per
+    * available processor.
+    */
    public RtspClient()
    {
-      this.reactor = new NioReactor(new RtspNioProvider());
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Create a client whose sessions are distributed across the specified
+    * number of reactors, each with its own selector thread.
+    *
+    * @throws IllegalArgumentException if reactors is not positive
+    */
+   public RtspClient(int reactors)
+   {
+      this.reactors = new NioReactorGroup(new RtspNioProvider(), reactors);
    }
 
 
@@ -47,11 +66,61 @@ public class RtspClient {
    {
       if(!Objects.notNull(uri).getScheme().equals("rtsp"))
          throw new IllegalArgumentException("only supports rtsp urls");
-      return new RtspSession(reactor, handler, uri, getUserAgent());
+      return new RtspSession(reactors.next(), handler, uri, getUserAgent(), ports);
+   }
+
+
+
+
+   /**
+    * Set the policy used to assign sessions to reactors as they are opened.
+    * Defaults to {@link NioReactorGroup.Policy#RoundRobin}.
+    */
+   public void setBalancingPolicy(NioReactorGroup.Policy policy)
+   {
+      reactors.setPolicy(policy);
    }
 
+   /**
+    * Returns the policy used to assign sessions to reactors.
+    */
+   public NioReactorGroup.Policy getBalancingPolicy()
+   {
+      return reactors.getPolicy();
+   }
 
-   
+   /**
+    * Returns the services (one per reactor) this client distributes its
+    * sessions across. These may be used to monitor the load on each.
+    */
+   public List<NioService> getServices()
+   {
+      return reactors.getServices();
+   }
+
+
+
+
+
+   /**
+    * Set the inclusive range of local ports from which the RTP/RTCP port
+    * pairs of sessions using UDP transport will be allocated.
+    *
+    * @throws IllegalArgumentException if the range does not contain at least
+    *          one even/odd pair of valid ports
+    */
+   public void setPortRange(int lower, int upper)
+   {
+      this.ports = new PortAllocator(lower, upper);
+   }
+
+   /**
+    * Returns the allocator from which UDP port pairs are allocated.
+    */
+   public PortAllocator getPortAllocator()
+   {
+      return ports;
+   }
 
 
 
@@ -109,7 +178,7 @@ public class RtspClient {
     */
    public boolean isActive()
    {
-      return reactor.isActive();
+      return reactors.isActive();
    }
 
 
@@ -118,7 +187,7 @@ public class RtspClient {
     */
    public void await()
    {
-      reactor.await();
+      reactors.await();
    }
 
    /**
@@ -132,7 +201,7 @@ public class RtspClient {
     */
    public boolean await(long timeout, TimeUnit unit)
    {
-      return reactor.await(timeout, unit);
+      return reactors.await(timeout, unit);
    }
 
 
@@ -29,7 +29,22 @@ public interface RtspHandler {
 
    /**
     * Called to indicate data read from an interleaved channel.
+    * <p/>
+    * The supplied buffer is a read-only view whose contents are only valid
+    * for the duration of this call as it may be backed by the session's read
+    * buffer or a pooled buffer. Implementations which need to retain the data
+    * must copy it.
     */
    public void onData(RtspSession session, int channel, ByteBuffer data) throws IOException;
 
+   /**
+    * Called when the session's write queue crosses its high watermark and
+    * again when it has drained below its low watermark. Producers of
+    * interleaved data should suspend writing while the session is not
+    * writable.
+    */
+   public default void onWritabilityChanged(RtspSession session, boolean writable)
+   {
+   }
+
 }
@@ -82,7 +82,14 @@ public enum RtspMethod {
     * parameters are defined by the session description, a SETUP request
     * has to be issued before the session can be played again.
     */
-   Teardown(false);
+   Teardown(false),
+
+   /**
+    * The GET_PARAMETER request retrieves the value of a parameter of a
+    * presentation or stream specified in the URI. A request with no entity
+    * body may be used to test client or server liveness ("ping").
+    */
+   GetParameter(true);
 
 
 
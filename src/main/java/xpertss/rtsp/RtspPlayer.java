@@ -5,24 +5,34 @@ import xpertss.lang.Numbers;
 import xpertss.lang.Objects;
 import xpertss.lang.Range;
 import xpertss.lang.Strings;
+import xpertss.media.ChannelSink;
+import xpertss.media.Depacketizer;
 import xpertss.media.MediaChannel;
 import xpertss.media.MediaConsumer;
+import xpertss.media.SafeMediaConsumer;
 import xpertss.mime.Header;
+import xpertss.mime.HeaderParser;
 import xpertss.mime.HeaderValue;
 import xpertss.mime.Headers;
 import xpertss.net.SocketOptions;
 import xpertss.sdp.MediaDescription;
 import xpertss.sdp.SessionDescription;
 import xpertss.sdp.SessionParser;
-import xpertss.utils.SafeProxy;
+import xpertss.threads.Threads;
 import xpertss.utils.Utils;
 
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 
+import static xpertss.net.OptionalSocketOptions.SO_DATAGRAM_RCVBUF;
 import static xpertss.net.OptionalSocketOptions.SO_TIMEOUT;
 import static xpertss.rtsp.RtspMethod.Describe;
 import static xpertss.rtsp.RtspMethod.Pause;
@@ -35,12 +45,22 @@ import static xpertss.rtsp.RtspStatus.*;
 public class RtspPlayer {
 
    private final TreeSet<MediaChannel> channels = new TreeSet<>();
+   private final ChannelSink[] sinks = new ChannelSink[256];
+   @SuppressWarnings("unchecked")
+   private final Predicate<ByteBuffer>[] keyframes = new Predicate[256];
    private final MediaConsumer consumer;
    private final RtspClient client;
 
    private volatile RtspState state = Stopped;
+   private RtspTransport transport = RtspTransport.Tcp;
+   private OverflowPolicy overflowPolicy = OverflowPolicy.DropOldest;
+   private volatile PacketDispatcher dispatcher;
+   private Executor dispatchExecutor;
+   private int dispatchCapacity = 1024;
    private RtspSession session;
+   private boolean pipelined;
    private int connectTimeout;
+   private int receiveBufferSize;
    private int readTimeout;
    private URI base;
 
@@ -49,8 +69,7 @@ public class RtspPlayer {
    public RtspPlayer(RtspClient client, MediaConsumer consumer)
    {
       this.client = Objects.notNull(client);
-      this.consumer = SafeProxy.newInstance(MediaConsumer.class,
-                                    Objects.notNull(consumer));
+      this.consumer = SafeMediaConsumer.wrap(Objects.notNull(consumer));
    }
 
 
@@ -83,6 +102,135 @@ public class RtspPlayer {
 
 
 
+   /**
+    * Set the size of the kernel receive buffer used by each of the UDP
+    * sockets media is received on. Zero uses the system default.
+    */
+   public void setReceiveBufferSize(int receiveBufferSize)
+   {
+      this.receiveBufferSize = Numbers.gte(0, receiveBufferSize, "receiveBufferSize must not be negative");
+   }
+
+   public int getReceiveBufferSize()
+   {
+      return receiveBufferSize;
+   }
+
+
+
+
+   /**
+    * Set the lower transport over which media should be delivered. Media is
+    * interleaved on the control connection by default.
+    */
+   public void setTransport(RtspTransport transport)
+   {
+      this.transport = Objects.notNull(transport, "transport");
+   }
+
+   public RtspTransport getTransport()
+   {
+      return transport;
+   }
+
+
+
+
+   /**
+    * When enabled the player will SETUP the first media channel to obtain a
+    * session id and then send the SETUP requests for the remaining channels
+    * along with the PLAY request without waiting for their responses. If the
+    * server rejects some of the pipelined SETUP requests but accepts the PLAY
+    * the player plays the channels which were set up. If it rejects the PLAY
+    * as well the player falls back to setting up the rejected channels one at
+    * a time and disables pipelining for subsequent starts.
+    */
+   public void setPipelined(boolean pipelined)
+   {
+      this.pipelined = pipelined;
+   }
+
+   public boolean isPipelined()
+   {
+      return pipelined;
+   }
+
+
+
+
+
+   /**
+    * Set the executor on which media is delivered to the consumer. By default
+    * media is delivered directly on the reactor thread, where a slow consumer
+    * delays reads for every session sharing that reactor. When an executor is
+    * set each packet is copied into a bounded per session queue and delivered
+    * in order by tasks run on the executor. Takes effect on the next start.
+    */
+   public void setDispatchExecutor(Executor dispatchExecutor)
+   {
+      this.dispatchExecutor = dispatchExecutor;
+   }
+
+   public Executor getDispatchExecutor()
+   {
+      return dispatchExecutor;
+   }
+
+
+   /**
+    * Set the number of packets the dispatch queue may hold, rounded up to a
+    * power of two. Defaults to 1024.
+    */
+   public void setDispatchCapacity(int dispatchCapacity)
+   {
+      this.dispatchCapacity = Numbers.within(2, 1 << 20, dispatchCapacity,
+                                              "dispatchCapacity must be between 2 and 2^20");
+   }
+
+   public int getDispatchCapacity()
+   {
+      return dispatchCapacity;
+   }
+
+
+   /**
+    * Set the action to take when a packet arrives while the dispatch queue is
+    * full. Defaults to dropping the oldest queued packet.
+    */
+   public void setOverflowPolicy(OverflowPolicy overflowPolicy)
+   {
+      this.overflowPolicy = Objects.notNull(overflowPolicy, "overflowPolicy");
+   }
+
+   public OverflowPolicy getOverflowPolicy()
+   {
+      return overflowPolicy;
+   }
+
+
+   /**
+    * Returns the number of packets waiting in the dispatch queue.
+    */
+   public int getDispatchQueueDepth()
+   {
+      PacketDispatcher dispatcher = this.dispatcher;
+      return (dispatcher != null) ? dispatcher.getDepth() : 0;
+   }
+
+   /**
+    * Returns the number of packets the dispatch queue has discarded due to
+    * overflow since the player was last started.
+    */
+   public long getDispatchDropped()
+   {
+      PacketDispatcher dispatcher = this.dispatcher;
+      return (dispatcher != null) ? dispatcher.getDropped() : 0;
+   }
+
+
+
+
+
    public SessionDescription getSessionDescription()
    {
       return getSessionDescription(session);
@@ -106,9 +254,12 @@ public class RtspPlayer {
    {
       if(state == Stopped) {
          state = Activating;
+         dispatcher = (dispatchExecutor == null) ? null
+                     : new PacketDispatcher(dispatchExecutor, dispatchCapacity, overflowPolicy, this::deliver);
          session = client.open(new RtspPlaybackHandler(), uri);
 
          SocketOptions.set(session, SO_TIMEOUT, readTimeout);
+         if(receiveBufferSize > 0) SocketOptions.set(session, SO_DATAGRAM_RCVBUF, receiveBufferSize);
 
          session.connect(connectTimeout);
       }
@@ -124,7 +275,7 @@ public class RtspPlayer {
          RtspRequest request = Play.createRequest(base);
          Headers headers = request.getHeaders();
          setSessionId(session, headers);
-         headers.setHeader("Range", "npt=0.000-");
+         headers.setHeader(RANGE);
          session.execute(request, new DefaultResponseHandler() {
             @Override public void onOkResponse(RtspSession session, RtspResponse response) throws IOException {
                state = Active;
@@ -164,6 +315,7 @@ public class RtspPlayer {
          headers.setHeader("Connection", "close");
          session.execute(request, new DefaultResponseHandler() {
             @Override public void onOkResponse(RtspSession session, RtspResponse response) throws IOException {
+               Arrays.fill(sinks, null);
                consumer.destroyChannels();
                session.close();
             }
@@ -179,6 +331,9 @@ public class RtspPlayer {
 
 
    private static final String TRANSPORT = "RTP/AVP/TCP;unicast;interleaved=%d-%d";
+   private static final String UDP_TRANSPORT = "RTP/AVP;unicast;client_port=%d-%d";
+   private static final Header ACCEPT = HeaderParser.parse("Accept", "application/sdp");
+   private static final Header RANGE = HeaderParser.parse("Range", "npt=0.000-");
 
    private void setupChannel(RtspSession session) throws IOException
    {
@@ -186,28 +341,67 @@ public class RtspPlayer {
       if(channel == null) {
          startPlayback(session);
       } else {
-         String control = channel.getControl();
-         URI target = (Strings.isEmpty(control)) ? base : base.resolve(control);
-         RtspRequest request = Setup.createRequest(target);
-         Headers headers = request.getHeaders();
-
-         final Range<Integer> channels = channel.getChannels();
-         headers.setHeader("Transport", String.format(TRANSPORT,
-                                                      channels.getLower(),
-                                                      channels.getUpper()));
-         setSessionId(session, headers);
-
-         session.execute(request, new DefaultResponseHandler() {
+         session.execute(createSetup(session, channel), new DefaultResponseHandler() {
             @Override
             public void onOkResponse(RtspSession session, RtspResponse response) throws IOException {
-               consumer.createChannel(channel);
-               session.setAttribute("session.id", Utils.getBaseHeader(response, "Session"));
-               setupChannel(session);
+               createChannel(channel);
+               setSessionId(session, Utils.getBaseHeader(response, "Session"));
+               if(pipelined && !channels.isEmpty()) {
+                  new PipelinedSetup().execute(session);
+               } else {
+                  setupChannel(session);
+               }
             }
          });
       }
    }
 
+   private void createChannel(MediaChannel channel)
+   {
+      consumer.createChannel(channel);
+      Range<Integer> range = channel.getChannels();
+      sinks[range.getLower()] = channel.getDataSink();
+      sinks[range.getUpper()] = channel.getControlSink();
+      if(dispatcher != null && overflowPolicy == OverflowPolicy.DropNonKeyframe) {
+         keyframes[range.getLower()] = Depacketizer.keyframes(channel);
+      }
+   }
+
+   private void deliver(ByteBuffer data, int channelId)
+   {
+      ChannelSink sink = sinks[channelId & 0xff];
+      if(sink == null) {
+         consumer.consume(channelId, data);
+      } else {
+         try {
+            sink.consume(data);
+         } catch(Throwable t) {
+            Threads.report(t);
+         }
+      }
+   }
+
+   private RtspRequest createSetup(RtspSession session, MediaChannel channel) throws IOException
+   {
+      String control = channel.getControl();
+      URI target = (Strings.isEmpty(control)) ? base : base.resolve(control);
+      RtspRequest request = Setup.createRequest(target);
+      Headers headers = request.getHeaders();
+
+      final Range<Integer> channels = channel.getChannels();
+      if(transport == RtspTransport.Udp) {
+         // Datagrams are delivered on the same channel ids interleaving would use
+         int port = session.openDatagramChannels(channels.getLower(), channels.getUpper());
+         headers.setHeader("Transport", String.format(UDP_TRANSPORT, port, port + 1));
+      } else {
+         headers.setHeader("Transport", String.format(TRANSPORT,
+                                                      channels.getLower(),
+                                                      channels.getUpper()));
+      }
+      setSessionId(session, headers);
+      return request;
+   }
+
 
 
 
@@ -216,7 +410,7 @@ public class RtspPlayer {
       RtspRequest request = Play.createRequest(base);
       Headers headers = request.getHeaders();
       setSessionId(session, headers);
-      headers.setHeader("Range", "npt=0.000-");
+      headers.setHeader(RANGE);
       session.execute(request, new DefaultResponseHandler() {
          @Override public void onOkResponse(RtspSession session, RtspResponse response) throws IOException {
             state = Active;
@@ -227,10 +421,17 @@ public class RtspPlayer {
 
 
 
+   private static void setSessionId(RtspSession session, String sessionId)
+   {
+      session.setAttribute("session.id", sessionId);
+      // Parse once so every subsequent request shares the same header instance
+      if(!Strings.isEmpty(sessionId)) session.setAttribute("session.header", HeaderParser.parse("Session", sessionId));
+   }
+
    private static void setSessionId(RtspSession session, Headers headers)
    {
-      String sessionId = (String) session.getAttribute("session.id");
-      if(!Strings.isEmpty(sessionId)) headers.setHeader("Session", sessionId);
+      Header header = (Header) session.getAttribute("session.header");
+      if(header != null) headers.setHeader(header);
    }
 
    private static SessionDescription getSessionDescription(RtspSession session)
@@ -247,7 +448,7 @@ public class RtspPlayer {
       {
          RtspRequest request = Describe.createRequest();
          Headers headers = request.getHeaders();
-         headers.setHeader("Accept", "application/sdp");
+         headers.setHeader(ACCEPT);
          session.execute(request, new DefaultResponseHandler() {
             @Override public void onOkResponse(RtspSession session, RtspResponse response) throws IOException {
                Headers headers = response.getHeaders();
@@ -264,6 +465,8 @@ public class RtspPlayer {
                   MediaDescription[] medias = consumer.select(sessionDescription);
                   if(Objects.isEmpty(medias)) throw new ProtocolException("missing media resource");
                   channels.clear();
+                  Arrays.fill(sinks, null);
+                  Arrays.fill(keyframes, null);
                   for(int i = 0; i < medias.length; i++) {
                      channels.add(new MediaChannel(medias[i], new Range<>(i * 2, i * 2 + 1)));
                   }
@@ -295,12 +498,75 @@ public class RtspPlayer {
       @Override
       public void onData(RtspSession session, int channelId, ByteBuffer data) throws IOException
       {
-         consumer.consume(channelId, data);
+         PacketDispatcher dispatcher = RtspPlayer.this.dispatcher;
+         if(dispatcher == null) {
+            deliver(data, channelId);
+         } else if(!dispatcher.offer(channelId, data, keyframes[channelId & 0xff])) {
+            throw new IOException("media consumer dispatch queue overflow");
+         }
       }
 
 
    }
 
+   /**
+    * Sends the SETUP requests for all remaining channels followed by the PLAY
+    * request without waiting for any of their responses. Responses arrive in
+    * request order so any channel whose SETUP was rejected is known by the
+    * time the PLAY response arrives. If the PLAY succeeded the session is
+    * already playing the channels which were set up and those are accepted.
+    * Otherwise the rejected channels are requeued and set up serially.
+    * <p/>
+    * The UDP sockets offered by a rejected SETUP are closed as soon as it is
+    * rejected, a serial retry opens a fresh pair.
+    */
+   private class PipelinedSetup {
+
+      private final List<MediaChannel> failed = new ArrayList<>();
+
+      private void execute(RtspSession session) throws IOException
+      {
+         MediaChannel next;
+         while((next = channels.pollFirst()) != null) {
+            final MediaChannel channel = next;
+            session.execute(createSetup(session, channel), new RtspResponseHandler() {
+               @Override
+               public void onResponse(RtspSession session, RtspResponse response) throws IOException {
+                  if(response.getStatus() == Ok) {
+                     createChannel(channel);
+                  } else {
+                     Range<Integer> ids = channel.getChannels();
+                     if(transport == RtspTransport.Udp) session.closeDatagramChannels(ids.getLower(), ids.getUpper());
+                     failed.add(channel);
+                  }
+               }
+            });
+         }
+
+         RtspRequest request = Play.createRequest(base);
+         Headers headers = request.getHeaders();
+         setSessionId(session, headers);
+         headers.setHeader(RANGE);
+         session.execute(request, new RtspResponseHandler() {
+            @Override
+            public void onResponse(RtspSession session, RtspResponse response) throws IOException {
+               if(response.getStatus() == Ok) {
+                  // Already playing, a second PLAY would be rejected so keep
+                  // the subset of channels the server accepted
+                  state = Active;
+               } else if(!failed.isEmpty()) {
+                  // Server does not support pipelining, fall back to serial setup
+                  pipelined = false;
+                  channels.addAll(failed);
+                  setupChannel(session);
+               } else {
+                  throw new SourceException(response.getStatus().getCode(), response.getStatusReason());
+               }
+            }
+         });
+      }
+   }
+
    private static class DefaultResponseHandler implements RtspResponseHandler {
 
       @Override public void onResponse(RtspSession session, RtspResponse response) throws IOException {
@@ -6,7 +6,6 @@ import xpertss.mime.Headers;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.util.List;
 
 /**
  */
@@ -54,10 +53,4 @@ public class RtspResponse {
       return this;
    }
 
-   static RtspResponse create(List<String> lines)
-   {
-      String[] status = lines.remove(0).split("\\s+", 3);
-      return new RtspResponse(RtspStatus.valueOf(Integer.parseInt(status[1])), status[2], Headers.create(lines));
-   }
-
 }
@@ -10,15 +10,22 @@ import xpertss.lang.Integers;
 import xpertss.lang.Numbers;
 import xpertss.lang.Objects;
 import xpertss.lang.Strings;
+import xpertss.mime.Header;
+import xpertss.mime.HeaderParser;
+import xpertss.mime.HeaderValue;
 import xpertss.mime.Headers;
-import xpertss.nio.Checkable;
+import xpertss.mime.Parameter;
+import xpertss.net.PortAllocator;
+import xpertss.net.WritePolicy;
 import xpertss.nio.ConnectHandler;
 import xpertss.nio.DataHandler;
+import xpertss.nio.DatagramRing;
 import xpertss.nio.NioAction;
 import xpertss.nio.NioReader;
 import xpertss.nio.NioService;
 import xpertss.nio.NioSession;
 import xpertss.nio.NioStats;
+import xpertss.nio.NioTimeout;
 import xpertss.nio.NioWriter;
 import xpertss.nio.ReadyState;
 import xpertss.nio.Selectable;
@@ -28,18 +35,21 @@ import xpertss.utils.Utils;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ProtocolException;
 import java.net.SocketAddress;
 import java.net.SocketOption;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
@@ -50,53 +60,98 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.nio.channels.SelectionKey.*;
+import static java.net.StandardSocketOptions.SO_RCVBUF;
+import static xpertss.net.OptionalSocketOptions.SO_DATAGRAM_RCVBUF;
+import static xpertss.net.OptionalSocketOptions.SO_DIRECT_BUFFER;
+import static xpertss.net.OptionalSocketOptions.SO_PACKET_BUDGET;
+import static xpertss.net.OptionalSocketOptions.SO_READ_BUDGET;
 import static xpertss.net.OptionalSocketOptions.SO_TIMEOUT;
+import static xpertss.net.OptionalSocketOptions.SO_WRITE_HIGH_WATERMARK;
+import static xpertss.net.OptionalSocketOptions.SO_WRITE_LOW_WATERMARK;
+import static xpertss.net.OptionalSocketOptions.SO_WRITE_POLICY;
 import static xpertss.nio.ReadyState.*;
 import static xpertss.rtsp.RtspMethod.*;
+import static xpertss.rtsp.RtspStatus.*;
 
 /**
  * This RtpSession impl is designed to support a streaming player not a
  * streaming producer.
  */
-public class RtspSession implements NioSession, DataHandler, ConnectHandler, Checkable {
+public class RtspSession implements NioSession, DataHandler, ConnectHandler {
 
+   private static final int MIN_READ = 2048;
+   private static final int MAX_READ = 65536;   // the largest size class the reactor's pool retains
 
    private final ConcurrentMap<String,Object> attributes = new ConcurrentHashMap<>();
    private final Deque<ResponseReader> readers = new ConcurrentLinkedDeque<>();
    private final Queue<NioWriter> writeQueue = new ConcurrentLinkedQueue<>();
-   private final ByteBuffer writeBuf = ByteBuffer.allocate(8192);
-   private final ByteBuffer readBuf = ByteBuffer.allocate(8192);
+   private final ByteBuffer[] segments = new ByteBuffer[64];
+   private final AtomicBoolean writable = new AtomicBoolean(true);
+   private final AtomicLong queued = new AtomicLong();
+   private final DataReader dataReader = new DataReader();
+   private final ResponseParser parser = new ResponseParser();
+   private final RequestEncoder encoder;
    private final long createTime = System.currentTimeMillis();
    private final ReadManager readManager = new ReadManager();
+   private final KeepAlive keepAlive = new KeepAlive();
+   private final List<DatagramEndpoint> endpoints = new CopyOnWriteArrayList<>();
    private final Logger log = LoggerFactory.getLogger(getClass());
-   private final NioStats write = new NioStats();
-   private final NioStats read = new NioStats();
+   private final NioStats write;
+   private final NioStats read;
    private final SocketAddress address;
    private final SocketChannel channel;
    private final RtspHandler handler;
    private final NioService service;
-   private final String userAgent;
+   private final PortAllocator ports;
    private final URI target;
 
    private volatile ReadyState readyState = Open;
+   private volatile WritePolicy writePolicy = WritePolicy.Fail;
+   private volatile int highWatermark = 1048576;
+   private volatile int lowWatermark = 524288;
+   private boolean notifiedWritable = true;
+   private boolean detached;
    private Set<SocketOption<?>> valid;
-   private long timeoutConnection;
+   private NioTimeout responseTimer;
+   private NioTimeout connectTimer;
+   private NioTimeout readTimer;
+   private NioTimeout keepAliveTimer;
+   private long lastRequest;
    private NioReader lastReader;
+   private ByteBuffer readBuf;
+   private ByteBuffer readView;
+   private int readEstimate = MIN_READ;
+   private ByteBuffer[] frameHeaders;
+   private int writeRound;
+   private volatile long dropped;
+   private int datagramBufferSize;
+   private boolean directBuffer;
+   private int packetBudget = 1024;
+   private int readBudget = 262144;
+   private int connectTimeout;
    private int readTimeout= 0;
    private int sequence = 0;
 
 
-   RtspSession(NioService service, RtspHandler handler, URI target, UserAgent userAgent)
+   RtspSession(NioService service, RtspHandler handler, URI target, UserAgent userAgent, PortAllocator ports)
    {
+      this.ports = Objects.notNull(ports);
       this.service = Objects.notNull(service);
+      this.write = new NioStats(service.getClock());
+      this.read = new NioStats(service.getClock());
+      this.lastRequest = service.getClock().nanoTime();
       this.handler = Objects.notNull(handler);
       this.target = Objects.notNull(target);
       this.address = Utils.createSocketAddress(target, 554);
       this.channel = NIOUtils.openTcpSocket(false);
-      this.userAgent = Objects.notNull(userAgent).toString();
+      this.encoder = new RequestEncoder(Objects.notNull(userAgent).toString());
    }
 
 
@@ -108,27 +163,158 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
       return target;
    }
 
+   /**
+    * Send the given request to the server and deliver its response to the
+    * specified handler. This may be called from any thread including the
+    * reactor's own. Responses are matched to handlers by the order in which
+    * requests are queued so assigning the CSeq and queueing the request and
+    * its reader is done as a single atomic step.
+    */
    public void execute(RtspRequest request, RtspResponseHandler handler)
    {
-      Headers headers = request.getHeaders();
-      headers.setHeader("CSeq", Integer.toString(++sequence));
-      headers.setIfNotSet("User-Agent", userAgent);
-      writeQueue.offer(request.createWriter(target));
-      readers.offer(new ResponseReader(handler, request.getMethod()));
+      ResponseReader reader = new ResponseReader(handler, request.getMethod());
+      synchronized(readers) {
+         writeQueue.offer(new RequestWriter(request, ++sequence, reader));
+         readers.offer(reader);
+      }
       service.execute(new RegisterAction(OP_WRITE));
    }
 
 
-   public void write(int channelId, ByteBuffer data)
+   /**
+    * Write the given data to the server as an interleaved frame on the
+    * specified channel. The buffer is written directly to the socket so
+    * the caller must not modify it once it has been handed to this method.
+    * <p/>
+    * If the session's write queue is above its high watermark the data is
+    * handled according to the session's {@link WritePolicy}. This returns
+    * {@code false} if the data was dropped rather than queued.
+    *
+    * @throws IllegalStateException if the write policy is Fail and the session
+    *          is not writable
+    */
+   public boolean write(int channelId, ByteBuffer data)
    {
       Numbers.within(0, 255, channelId, "channelId outside range 0 - 255");
-      Numbers.within(0, 65545, data.remaining(), "data buffer is too large");
-      writeQueue.offer(new ChannelWriter(data, channelId));
+      Numbers.within(0, 65535, data.remaining(), "data buffer is too large");
+      if(!writable.get() && !awaitWritable()) return false;
+      ChannelWriter writer = new ChannelWriter(data, channelId);
+      if(queued.addAndGet(writer.size()) >= highWatermark && writable.compareAndSet(true, false)) {
+         service.execute(new WritabilityAction());
+      }
+      writeQueue.offer(writer);
       service.execute(new RegisterAction(OP_WRITE));
+      return true;
+   }
+
+   /**
+    * Bind a pair of UDP sockets from the client's port range over which the
+    * server may send RTP and RTCP packets. Packets received on them are
+    * delivered to the handler as data on the given channel ids, exactly as
+    * if they had been interleaved on the control connection. Datagrams from
+    * any host other than the server are discarded. Returns the RTP port, the
+    * RTCP port is the one above it.
+    *
+    * @throws java.net.BindException if no port pair is available
+    * @throws IOException if an I/O error occurs opening the sockets
+    */
+   public int openDatagramChannels(int rtpChannel, int rtcpChannel) throws IOException
+   {
+      Numbers.within(0, 255, rtpChannel, "rtpChannel outside range 0 - 255");
+      Numbers.within(0, 255, rtcpChannel, "rtcpChannel outside range 0 - 255");
+      DatagramChannel[] pair = ports.allocate();
+      try {
+         return openDatagramChannels(pair, rtpChannel, rtcpChannel);
+      } catch(IOException | RuntimeException e) {
+         NIOUtils.close(pair[0]);
+         NIOUtils.close(pair[1]);
+         throw e;
+      }
+   }
+
+   private int openDatagramChannels(DatagramChannel[] pair, int rtpChannel, int rtcpChannel) throws IOException
+   {
+      if(datagramBufferSize > 0) {
+         pair[0].setOption(SO_RCVBUF, datagramBufferSize);
+         pair[1].setOption(SO_RCVBUF, datagramBufferSize);
+      }
+      // The server's RTP source port is not known until it answers the SETUP
+      // so datagrams are filtered by host rather than by connecting the pair
+      InetAddress source = channel.socket().getInetAddress();
+      DatagramEndpoint rtp = new DatagramEndpoint(pair[0], rtpChannel, true, source);
+      DatagramEndpoint rtcp = new DatagramEndpoint(pair[1], rtcpChannel, false, source);
+      endpoints.add(rtp);
+      endpoints.add(rtcp);
+      service.execute(rtp);
+      service.execute(rtcp);
+      return pair[0].socket().getLocalPort();
+   }
+
+   /**
+    * Close the UDP socket pair previously opened for the given channel ids,
+    * for example because the server rejected the SETUP which offered it.
+    */
+   public void closeDatagramChannels(int rtpChannel, int rtcpChannel)
+   {
+      for(DatagramEndpoint endpoint : endpoints) {
+         if(endpoint.channelId == rtpChannel || endpoint.channelId == rtcpChannel) {
+            endpoints.remove(endpoint);
+            NIOUtils.close(endpoint.channel);
+         }
+      }
+   }
+
+   /**
+    * Returns true if the session's write queue is below its high watermark
+    * or has since drained below its low watermark.
+    */
+   public boolean isWritable()
+   {
+      return writable.get();
    }
 
 
 
+   private boolean awaitWritable()
+   {
+      WritePolicy policy = writePolicy;
+      if(policy == WritePolicy.Block && !service.isSelectorThread()) {
+         synchronized(writable) {
+            try {
+               while(!writable.get() && channel.isOpen()) writable.wait();
+            } catch(InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return false;
+            }
+         }
+         return channel.isOpen();
+      } else if(policy == WritePolicy.Drop) {
+         return false;
+      }
+      // Blocking the reactor would deadlock it so treat that as a failure
+      throw new IllegalStateException("session write queue is full");
+   }
+
+   private void retired(NioWriter writer)
+   {
+      if(writer instanceof ChannelWriter) {
+         long remaining = queued.addAndGet(-((ChannelWriter) writer).size());
+         if(remaining <= lowWatermark && writable.compareAndSet(false, true)) {
+            synchronized(writable) { writable.notifyAll(); }
+            notifyWritability();
+         }
+      }
+   }
+
+   private void notifyWritability()
+   {
+      // Reactor thread only, coalesces transitions that raced one another
+      boolean state = writable.get();
+      if(state != notifiedWritable) {
+         notifiedWritable = state;
+         handler.onWritabilityChanged(this, state);
+      }
+   }
 
 
 
@@ -145,7 +331,7 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    {
       if(channel.isOpen()) {
          readyState = Connecting;
-         this.timeoutConnection = Utils.computeTimeout(timeout);
+         this.connectTimeout = (timeout == 0) ? 60000 : timeout;  // default timeout of 60 seconds
          service.execute(new ConnectAction(channel, address));
       }
    }
@@ -203,6 +389,21 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    {
       if(option == SO_TIMEOUT) {
          this.readTimeout = Utils.maxIfZero(Numbers.gte(0, (Integer) value, "timeout must not be negative"));
+      } else if(option == SO_READ_BUDGET) {
+         this.readBudget = Numbers.gt(0, (Integer) value, "read budget must be positive");
+      } else if(option == SO_PACKET_BUDGET) {
+         this.packetBudget = Numbers.gt(0, (Integer) value, "packet budget must be positive");
+      } else if(option == SO_DIRECT_BUFFER) {
+         this.directBuffer = Objects.notNull((Boolean) value, "value");
+      } else if(option == SO_DATAGRAM_RCVBUF) {
+         this.datagramBufferSize = Numbers.gt(0, (Integer) value, "receive buffer size must be positive");
+         for(DatagramEndpoint endpoint : endpoints) endpoint.channel.setOption(SO_RCVBUF, datagramBufferSize);
+      } else if(option == SO_WRITE_HIGH_WATERMARK) {
+         this.highWatermark = Numbers.gt(0, (Integer) value, "high watermark must be positive");
+      } else if(option == SO_WRITE_LOW_WATERMARK) {
+         this.lowWatermark = Numbers.gte(0, (Integer) value, "low watermark must not be negative");
+      } else if(option == SO_WRITE_POLICY) {
+         this.writePolicy = Objects.notNull((WritePolicy) value, "value");
       } else if(channel.supportedOptions().contains(option)) {
          channel.setOption(option, value);
       }
@@ -215,6 +416,20 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    {
       if(option == SO_TIMEOUT) {
          return option.type().cast(this.readTimeout);
+      } else if(option == SO_READ_BUDGET) {
+         return option.type().cast(this.readBudget);
+      } else if(option == SO_PACKET_BUDGET) {
+         return option.type().cast(this.packetBudget);
+      } else if(option == SO_DIRECT_BUFFER) {
+         return option.type().cast(this.directBuffer);
+      } else if(option == SO_DATAGRAM_RCVBUF) {
+         return option.type().cast(this.datagramBufferSize);
+      } else if(option == SO_WRITE_HIGH_WATERMARK) {
+         return option.type().cast(this.highWatermark);
+      } else if(option == SO_WRITE_LOW_WATERMARK) {
+         return option.type().cast(this.lowWatermark);
+      } else if(option == SO_WRITE_POLICY) {
+         return option.type().cast(this.writePolicy);
       } else if(channel.supportedOptions().contains(option)) {
          return channel.getOption(option);
       }
@@ -229,6 +444,13 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
          Set<SocketOption<?>> set = new HashSet<>();
          set.addAll(channel.supportedOptions());
          set.add(SO_TIMEOUT);
+         set.add(SO_READ_BUDGET);
+         set.add(SO_PACKET_BUDGET);
+         set.add(SO_DIRECT_BUFFER);
+         set.add(SO_DATAGRAM_RCVBUF);
+         set.add(SO_WRITE_HIGH_WATERMARK);
+         set.add(SO_WRITE_LOW_WATERMARK);
+         set.add(SO_WRITE_POLICY);
          valid = Collections.unmodifiableSet(set);
       }
       return valid;
@@ -285,6 +507,18 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
       return read.getCount();
    }
 
+   /**
+    * Returns the number of UDP media packets this session has lost. This
+    * includes datagrams too large for the session's receive buffers and gaps
+    * in RTP sequence numbers, which occur when the kernel's receive buffer
+    * overflows because the session fell behind as well as when packets are
+    * lost in the network.
+    */
+   public long getPacketsDropped()
+   {
+      return dropped;
+   }
+
 
 
 
@@ -330,6 +564,14 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    public void handleConnect() throws IOException
    {
       channel.finishConnect();
+      cancel(connectTimer);
+      if(directBuffer) {
+         // The reactor's pool holds heap buffers so a direct read buffer is
+         // dedicated to the session, sized to the socket's receive buffer
+         int size = Math.min(Math.max(channel.getOption(SO_RCVBUF), 8192), 262144);
+         readBuf = ByteBuffer.allocateDirect(size);
+         readView = readBuf.asReadOnlyBuffer();
+      }
       service.execute(new UnregisterAction(OP_CONNECT));
       handler.onConnect(this);
       readyState = Connected;
@@ -339,76 +581,128 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    @Override
    public void handleRead() throws IOException
    {
-      int result = channel.read(readBuf);
-      if(result < 0) {
-         throw new EOFException("peer closed connection");
-      } else {
-         read.record(result);
-         readBuf.flip();
-         while(readBuf.hasRemaining()) {
+      if(readBuf == null) acquireReadBuffer();
+      int bytes = 0, packets = 0;
+      try {
+         while(bytes < readBudget && packets < packetBudget && channel.isOpen()) {
+            int result = channel.read(readBuf);
+            if(result < 0) throw new EOFException("peer closed connection");
+            if(result == 0) break;
+            read.record(result);
+            bytes += result;
+            // A short read means we have drained the socket
+            boolean drained = readBuf.hasRemaining();
+            readBuf.flip();
+            packets += decode(readBuf);
+            readBuf.compact();
+            if(drained) break;
+         }
+      } finally {
+         readEstimate += (bytes - readEstimate) >> 2;
+         if(!directBuffer && (!channel.isOpen() || readBuf.position() == 0 && !retainReadBuffer())) {
+            releaseReadBuffer();
+         }
+      }
+   }
+
+   /**
+    * Borrow a read buffer from the reactor's pool sized to the number of bytes
+    * recently consumed per readiness event.
+    */
+   private void acquireReadBuffer()
+   {
+      readBuf = service.getBufferPool().acquire(readTarget());
+      readBuf.clear();
+      readView = readBuf.asReadOnlyBuffer();
+   }
+
+   private void releaseReadBuffer()
+   {
+      service.getBufferPool().release(readBuf);
+      readBuf = readView = null;
+   }
+
+   /**
+    * An empty read buffer is kept between readiness events only while media
+    * is playing and its size still suits the observed rate. Idle and paused
+    * sessions hold no read buffer at all.
+    */
+   private boolean retainReadBuffer()
+   {
+      if(!readManager.isReaderActive()) return false;
+      int capacity = readBuf.capacity(), target = readTarget();
+      return capacity >= target && capacity <= target * 2;
+   }
+
+   private int readTarget()
+   {
+      int size = Integer.highestOneBit(Math.max(readEstimate, MIN_READ) - 1) << 1;
+      return Math.min(size, MAX_READ);
+   }
+
+   /**
+    * Dispatch the contents of the given buffer to the appropriate readers
+    * returning the number of interleaved packets delivered.
+    */
+   private int decode(ByteBuffer src) throws IOException
+   {
+      int packets = 0;
+      while(src.hasRemaining()) {
+         if(lastReader != null) {
+            if(lastReader.readFrom(src)) {
+               if(lastReader == dataReader) packets++;
+               lastReader = null;
+            }
+         } else if(src.get(src.position()) == 0x24) {
+            if(src.remaining() < 4) break;
+            lastReader = dataReader;
+            if(lastReader.readFrom(src)) {
+               lastReader = null;
+               packets++;
+            }
+         } else {
+            // TODO We need to be prepared for a spontaneous RTSP Response block
+            // while reading channelized data. This might for example be the sever
+            // telling us it is timing out our session due to lack of keep alive.
+            lastReader = readers.poll();
             if(lastReader != null) {
-               if(lastReader.readFrom(readBuf)) {
-                  lastReader = null;
-               }
-            } else if(readBuf.get(readBuf.position()) == 0x24) {
-               if(readBuf.remaining() < 4) break;
-               lastReader = new DataReader();
-               if(lastReader.readFrom(readBuf)) {
+               if (lastReader.readFrom(src)) {
                   lastReader = null;
                }
             } else {
-               // TODO We need to be prepared for a spontaneous RTSP Response block
-               // while reading channelized data. This might for example be the sever
-               // telling us it is timing out our session due to lack of keep alive.
-               lastReader = readers.poll();
-               if(lastReader != null) {
-                  if (lastReader.readFrom(readBuf)) {
-                     lastReader = null;
-                  }
-               } else {
-                  // We probably should have some sort of ResponseReader here
-                  String str = Buffers.toHexString(readBuf, readBuf.position(), Math.min(readBuf.remaining(), 10));
-                  log.error("Unexpected data: " + str);
-                  throw new ProtocolException("unexpected read received");
-               }
+               // We probably should have some sort of ResponseReader here
+               String str = Buffers.toHexString(src, src.position(), Math.min(src.remaining(), 10));
+               log.error("Unexpected data: " + str);
+               throw new ProtocolException("unexpected read received");
             }
          }
-         readBuf.compact();
       }
+      return packets;
    }
 
    @Override
    public void handleWrite() throws IOException
    {
-      NioWriter writer = writeQueue.peek();
-      if(writer != null) {
-         if(writer.writeTo(writeBuf)) writeQueue.remove();
+      // Gather as many pending writers as will fit into a single write
+      writeRound++;
+      int count = 0;
+      for(NioWriter writer : writeQueue) {
+         int added = writer.gather(segments, count);
+         if(added == 0) break;
+         count += added;
       }
-      writeBuf.flip();
-      if(writeBuf.hasRemaining()) {
-         write.record(channel.write(writeBuf));
+      if(count > 0) {
+         try {
+            write.record(channel.write(segments, 0, count));
+         } finally {
+            Arrays.fill(segments, 0, count, null);
+         }
+         while(!writeQueue.isEmpty() && writeQueue.peek().complete()) retired(writeQueue.remove());
       } else if(writeQueue.isEmpty()) {
          service.execute(new UnregisterAction(SelectionKey.OP_WRITE));
       }
-      writeBuf.compact();
-   }
-
-
-   @Override
-   public void handleCheckup() throws IOException
-   {
-      int timeout = Utils.maxIfZero(readTimeout);
-      if(readyState == Connecting && System.nanoTime() >= timeoutConnection) {
-         throw new ConnectException("connection timed out");
-      } else if(readyState == Connected) {
-         ResponseReader reader = readers.peek();
-         if(reader != null && reader.getWaitingTime() >= timeout) {
-            throw new SocketTimeoutException("response timed out");
-         } else if(readManager.isReaderActive()) {
-            if(System.currentTimeMillis() - read.getTime() >= timeout) {
-               throw new SocketTimeoutException("read timed out");
-            }
-         }
+      if(responseTimer == null && isTimed() && !readers.isEmpty()) {
+         responseTimer = service.schedule(new ResponseTimeout(), readTimeout, TimeUnit.MILLISECONDS);
       }
    }
 
@@ -422,7 +716,17 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
    @Override
    public void shutdown(Exception ex)
    {
+      if(!detached) {
+         detached = true;
+         service.detach();
+      }
       NIOUtils.close(channel);
+      for(DatagramEndpoint endpoint : endpoints) NIOUtils.close(endpoint.channel);
+      synchronized(writable) { writable.notifyAll(); }
+      cancel(connectTimer);
+      cancel(responseTimer);
+      cancel(readTimer);
+      cancel(keepAliveTimer);
       try {
          if (ex == null) handler.onClose(this);
          else handler.onFailure(this, ex);
@@ -434,6 +738,19 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
 
 
 
+   private boolean isTimed()
+   {
+      return readTimeout > 0 && readTimeout < Integer.MAX_VALUE;
+   }
+
+   private static void cancel(NioTimeout timeout)
+   {
+      if(timeout != null) timeout.cancel();
+   }
+
+
+
+
    private class ConnectAction implements NioAction {
 
       private final SocketAddress address;
@@ -452,6 +769,7 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
             SelectionKey sk = channel.keyFor(selector);
             if(sk == null) {
                channel.register(selector, OP_CONNECT, RtspSession.this);
+               connectTimer = service.schedule(new ConnectTimeout(), connectTimeout, TimeUnit.MILLISECONDS);
                socket.connect(address);
             }
          }
@@ -481,6 +799,19 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
 
    }
 
+   private class WritabilityAction implements NioAction {
+
+      public void execute(Selector selector)
+      {
+         notifyWritability();
+      }
+
+      public Selectable getSelectable()
+      {
+         return RtspSession.this;
+      }
+   }
+
    private class RegisterAction implements NioAction {
 
       private int ops;
@@ -540,22 +871,276 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
 
 
 
+   private class ConnectTimeout implements NioAction {
+
+      public void execute(Selector selector) throws IOException
+      {
+         if(readyState == Connecting && channel.isOpen()) {
+            throw new ConnectException("connection timed out");
+         }
+      }
+
+      public Selectable getSelectable()
+      {
+         return RtspSession.this;
+      }
+
+   }
+
+   private class ResponseTimeout implements NioAction {
+
+      public void execute(Selector selector) throws IOException
+      {
+         responseTimer = null;
+         ResponseReader reader = readers.peek();
+         if(reader != null && channel.isOpen()) {
+            long remaining = Utils.maxIfZero(readTimeout) - reader.getWaitingTime();
+            if(remaining <= 0) throw new SocketTimeoutException("response timed out");
+            responseTimer = service.schedule(this, remaining, TimeUnit.MILLISECONDS);
+         }
+      }
+
+      public Selectable getSelectable()
+      {
+         return RtspSession.this;
+      }
+
+   }
+
+   private class ReadTimeout implements NioAction {
+
+      public void execute(Selector selector) throws IOException
+      {
+         readTimer = null;
+         if(readManager.isReaderActive() && channel.isOpen()) {
+            long idle = service.getClock().currentTimeMillis() - read.getTime();
+            long remaining = Utils.maxIfZero(readTimeout) - idle;
+            if(remaining <= 0) throw new SocketTimeoutException("read timed out");
+            readTimer = service.schedule(this, remaining, TimeUnit.MILLISECONDS);
+         }
+      }
+
+      public Selectable getSelectable()
+      {
+         return RtspSession.this;
+      }
+
+   }
+
+
+
+
+   /**
+    * One half of a UDP port pair. Each endpoint registers itself with the
+    * session's reactor and delivers the datagrams it receives as data on its
+    * channel id.
+    */
+   private class DatagramEndpoint implements DataHandler, NioAction {
+
+      private final DatagramChannel channel;
+      private final InetAddress source;
+      private final int channelId;
+      private final boolean rtp;
+      private int expected = -1;
+
+      private DatagramEndpoint(DatagramChannel channel, int channelId, boolean rtp, InetAddress source)
+      {
+         this.channel = channel;
+         this.channelId = channelId;
+         this.source = source;
+         this.rtp = rtp;
+      }
+
+      /**
+       * Drain the socket into the reactor's ring of direct buffers, a ring full
+       * at a time, and then deliver the batch before receiving any more. Stop when the socket is empty or
+       * the packet budget for this wakeup is exhausted in which case anything
+       * remaining waits in the kernel's receive buffer for the next wakeup.
+       */
+      @Override
+      public void handleRead() throws IOException
+      {
+         DatagramRing ring = service.getDatagramRing();
+         int budget = packetBudget;
+         boolean drained = false;
+         while(!drained && budget > 0) {
+            int count = 0;
+            while(count < ring.size() && budget > 0) {
+               ByteBuffer slot = ring.slot(count);
+               slot.clear();
+               SocketAddress from = channel.receive(slot);
+               if(from == null) {
+                  drained = true;
+                  break;
+               }
+               budget--;
+               if(!isFromSource(from)) {
+                  continue;   // stray traffic, the slot is reused
+               } else if(slot.hasRemaining()) {
+                  slot.flip();
+                  count++;
+               } else if(!rtp) {
+                  dropped++;  // truncated, RTP losses are counted by sequence
+               }
+            }
+            for(int i = 0; i < count && channel.isOpen(); i++) {
+               ByteBuffer packet = ring.packet(i);
+               read.record(packet.remaining());
+               if(rtp) sequence(packet);
+               handler.onData(RtspSession.this, channelId, packet);
+            }
+         }
+      }
+
+      private boolean isFromSource(SocketAddress from)
+      {
+         return source == null || source.equals(((InetSocketAddress) from).getAddress());
+      }
+
+      private void sequence(ByteBuffer packet)
+      {
+         if(packet.remaining() >= 12 && (packet.get(0) & 0xc0) == 0x80) {
+            int seq = packet.getShort(2) & 0xffff;
+            if(expected >= 0) {
+               int gap = (seq - expected) & 0xffff;
+               if(gap > 0 && gap < 3000) dropped += gap;  // ignore reordering and resets
+            }
+            expected = (seq + 1) & 0xffff;
+         }
+      }
+
+      @Override
+      public void handleWrite()
+      {
+      }
+
+      @Override
+      public void execute(Selector selector) throws IOException
+      {
+         if(channel.isOpen()) channel.register(selector, OP_READ, this);
+      }
+
+      @Override
+      public SelectableChannel getChannel()
+      {
+         return channel;
+      }
+
+      @Override
+      public Selectable getSelectable()
+      {
+         return this;
+      }
+
+      @Override
+      public void shutdown(Exception ex)
+      {
+         RtspSession.this.shutdown(ex);
+      }
+   }
+
+   private class RequestWriter implements NioWriter {
+
+      private final ResponseReader reader;
+      private final RtspRequest request;
+      private final int sequence;
+      private ByteBuffer encoded;
+
+      private RequestWriter(RtspRequest request, int sequence, ResponseReader reader)
+      {
+         this.request = request;
+         this.sequence = sequence;
+         this.reader = reader;
+      }
+
+      @Override
+      public int gather(ByteBuffer[] srcs, int offset)
+      {
+         if(offset >= srcs.length) return 0;
+         if(encoded == null) {
+            URI uri = Objects.ifNull(request.getTarget(), target);
+            encoded = encoder.encode(request, uri, sequence, service.getBufferPool());
+            // Stamped on the reactor thread so they share its clock with the
+            // timeouts which compare against them
+            lastRequest = reader.sentTime = service.getClock().nanoTime();
+            reader.sent = true;
+         }
+         srcs[offset] = encoded;
+         return 1;
+      }
+
+      @Override
+      public boolean complete()
+      {
+         if(encoded == null || encoded.hasRemaining()) return false;
+         service.getBufferPool().release(encoded);
+         encoded = null;
+         return true;
+      }
+   }
+
+   /**
+    * Returns the session's reusable interleaved frame header for the given
+    * segment index. Headers are only needed from the time writers are gathered
+    * until the write completes, both of which happen on the reactor thread,
+    * so each segment index needs at most one.
+    */
+   private ByteBuffer frameHeader(int index)
+   {
+      if(frameHeaders == null) frameHeaders = new ByteBuffer[segments.length];
+      if(frameHeaders[index] == null) frameHeaders[index] = ByteBuffer.allocate(4);
+      return frameHeaders[index];
+   }
+
+   /**
+    * Writes an interleaved frame. Its four byte header is encoded into one of
+    * the session's frame headers each time it is gathered. Gathered buffers are
+    * written in order so only the first incomplete writer after a write can
+    * have partially written its header, and it records how much was written
+    * when its completion is checked.
+    */
    private class ChannelWriter implements NioWriter {
 
-      private ByteBuffer data;
+      private final ByteBuffer data;
+      private final int channelId;
+      private final int length;
+      private ByteBuffer header;
+      private int headerWritten;
+      private int round;
+
       private ChannelWriter(ByteBuffer src, int channelId)
       {
-         data = ByteBuffer.allocate(src.remaining() + 4);
-         data.put((byte)0x24).put((byte)channelId).putShort((short)src.remaining());
-         Buffers.copyTo(src, data);
-         data.flip();
+         this.data = src;
+         this.channelId = channelId;
+         this.length = src.remaining();
+      }
+
+      private int size()
+      {
+         return length + 4;
+      }
+
+      @Override
+      public int gather(ByteBuffer[] srcs, int offset)
+      {
+         if(srcs.length - offset < 2) return 0;
+         header = frameHeader(offset);
+         header.clear();
+         header.put((byte)0x24).put((byte)channelId).putShort((short)length);
+         header.flip().position(headerWritten);
+         round = writeRound;
+         srcs[offset] = header;
+         srcs[offset + 1] = data;
+         return 2;
       }
 
       @Override
-      public boolean writeTo(ByteBuffer dst) throws IOException
+      public boolean complete()
       {
-         Buffers.copyTo(data, dst);
-         return !(data.hasRemaining());
+         // A header gathered in an earlier round may since have been reused
+         if(header != null && round == writeRound) headerWritten = header.position();
+         header = null;
+         return headerWritten == 4 && !data.hasRemaining();
       }
    }
 
@@ -563,14 +1148,13 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
 
    private class ResponseReader implements NioReader {
 
-      private final CharBuffer lineBuffer = CharBuffer.allocate(2048);  // limit header/request line length to 2k
-      private final List<String> lines = new ArrayList<>();
-      private final long createTime = System.nanoTime();
       private final RtspResponseHandler handler;
       private final RtspMethod method;
 
       private RtspResponse response;
       private ByteBuffer entity;
+      private boolean sent;
+      private long sentTime;
 
       public ResponseReader(RtspResponseHandler handler, RtspMethod method)
       {
@@ -578,9 +1162,14 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
          this.method = Objects.notNull(method);
       }
 
+      /**
+       * Returns the number of milliseconds since this reader's request was
+       * written, or zero if it has not yet been written.
+       */
       public long getWaitingTime()
       {
-         return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createTime);
+         if(!sent) return 0;
+         return TimeUnit.NANOSECONDS.toMillis(service.getClock().nanoTime() - sentTime);
       }
 
 
@@ -599,17 +1188,7 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
 
       private RtspResponse readResponse(ByteBuffer src) throws IOException
       {
-         while(readLine(src, lineBuffer)) {
-            if(lineBuffer.position() == 0) {
-               if(lines.isEmpty()) throw new IOException("premature end of response");
-               return RtspResponse.create(lines);
-            } else if(lines.size() < 30) {
-               lines.add(Utils.consume(lineBuffer, false));
-            } else {
-               throw new ProtocolException("max number of lines exceeded");
-            }
-         }
-         return null;
+         return parser.parse(src);
       }
 
       private boolean readEntity(ByteBuffer src) throws IOException
@@ -627,22 +1206,15 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
       }
 
 
-      private boolean readLine(ByteBuffer src, CharBuffer dst)
-      {
-         while(src.hasRemaining()) {
-            char c = (char) (src.get() & 0xff);
-            if(c == '\n') {
-               return true;
-            } else if(c != '\r') {
-               dst.append(c);
-            }
-         }
-         return false;
-      }
-
-
    }
 
+   /**
+    * Reads interleaved data frames. Frames which are entirely contained in the
+    * read buffer are delivered in place as a read-only slice of it. Frames which
+    * span reads are assembled into a buffer borrowed from the service's pool
+    * which is returned as soon as the frame has been delivered. In either case
+    * the buffer is only valid for the duration of the onData callback.
+    */
    private class DataReader implements NioReader {
 
       private ByteBuffer data;
@@ -653,20 +1225,107 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
       {
          if(data == null) {
             if (src.get() != 0x24) throw new ProtocolException("expected interleaved data");
-            channelId = src.get();
-            int len = src.getShort();
-            data = ByteBuffer.allocate(len);
+            channelId = src.get() & 0xff;
+            int len = src.getShort() & 0xffff;
+            if(src.remaining() >= len) {
+               int position = src.position();
+               readView.clear();
+               readView.position(position).limit(position + len);
+               src.position(position + len);
+               handler.onData(RtspSession.this, channelId, readView.slice());
+               return true;
+            }
+            data = service.getBufferPool().acquire(len);
          }
          Buffers.copyTo(src, data);
          if (data.hasRemaining()) return false;
          data.flip();
-         handler.onData(RtspSession.this, channelId, data.asReadOnlyBuffer());
+         try {
+            handler.onData(RtspSession.this, channelId, data.asReadOnlyBuffer());
+         } finally {
+            service.getBufferPool().release(data);
+            data = null;
+         }
          return true;
       }
    }
 
 
 
+   /**
+    * Servers expire sessions which have been idle for longer than the timeout
+    * advertised in their Session header. This sends a GET_PARAMETER request,
+    * or OPTIONS for servers which do not support it, whenever no request has
+    * been sent for half the server's timeout. Each schedule is jittered so
+    * that sessions established together do not all send their keep-alives
+    * in the same instant.
+    */
+   private class KeepAlive implements NioAction, RtspResponseHandler {
+
+      private Header session;
+      private long interval;
+      private boolean useOptions;
+
+      public void execute(Selector selector)
+      {
+         keepAliveTimer = null;
+         long idle = TimeUnit.NANOSECONDS.toMillis(service.getClock().nanoTime() - lastRequest);
+         if(idle >= interval - interval / 10) {
+            send();
+            idle = 0;
+         }
+         schedule(interval - idle);
+      }
+
+      public Selectable getSelectable()
+      {
+         return RtspSession.this;
+      }
+
+      public void onResponse(RtspSession session, RtspResponse response) throws IOException
+      {
+         RtspStatus status = response.getStatus();
+         if(!useOptions && Objects.isOneOf(status, NotImplemented, MethodNotAllowed, OptionNotSupported)) {
+            useOptions = true;
+            send();
+         } else if(status != Ok) {
+            log.warn("keep-alive rejected: {}", response);
+         }
+      }
+
+
+      private void arm(Header sessionHeader)
+      {
+         if(sessionHeader == null || sessionHeader.size() == 0) return;
+         HeaderValue value = sessionHeader.getValue(0);
+         Parameter param = value.getParameter("timeout");
+         int timeout = (param == null) ? 60 : Integers.parse(param.getValue(), 60);
+         session = HeaderParser.parse("Session", value.getValue());
+         interval = TimeUnit.SECONDS.toMillis(Math.max(timeout, 2)) / 2;
+         if(keepAliveTimer == null) schedule(interval);
+      }
+
+      private void disarm()
+      {
+         cancel(keepAliveTimer);
+         keepAliveTimer = null;
+         session = null;
+      }
+
+      private void schedule(long delay)
+      {
+         long jitter = ThreadLocalRandom.current().nextLong(interval / 10 + 1);
+         keepAliveTimer = service.schedule(this, Math.max(delay - jitter, 1), TimeUnit.MILLISECONDS);
+      }
+
+      private void send()
+      {
+         RtspRequest request = (useOptions) ? Options.createRequest() : GetParameter.createRequest();
+         request.getHeaders().setHeader(session);
+         RtspSession.this.execute(request, this);
+      }
+   }
+
    private class ReadManager {
 
       private final ConcurrentMap<String, Boolean> channels = new ConcurrentHashMap<>();
@@ -676,20 +1335,23 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
       public void eval(RtspMethod method, Headers response)
       {
          if(method == Setup) {
+            keepAlive.arm(response.getHeader("Session"));
             String transport = Headers.toString(response.getHeader("Transport"));
-            if(Strings.contains(transport, "interleaved")) {
+            if(Strings.contains(transport, "interleaved") || Strings.contains(transport, "client_port")) {
                String sessionId = Headers.toString(response.getHeader("Session"));
                if(sessionId != null) channels.put(sessionId, false);
             }
          } else if(method == Play) {
             String sessionId = Headers.toString(response.getHeader("Session"));
             if(sessionId != null && channels.replace(sessionId, false, true)) count++;
+            arm();
          } else if(method == Pause) {
             String sessionId = Headers.toString(response.getHeader("Session"));
             if(sessionId != null && channels.replace(sessionId, true, false)) count--;
          } else if(method == Teardown) {
             String sessionId = Headers.toString(response.getHeader("Session"));
             if(Booleans.isTrue(channels.remove(sessionId))) count--;
+            keepAlive.disarm();
          }
       }
 
@@ -698,6 +1360,13 @@ public class RtspSession implements NioSession, DataHandler, ConnectHandler, Che
          return count > 0;
       }
 
+      private void arm()
+      {
+         if(readTimer == null && isTimed() && count > 0) {
+            readTimer = service.schedule(new ReadTimeout(), readTimeout, TimeUnit.MILLISECONDS);
+         }
+      }
+
    }
 
 }
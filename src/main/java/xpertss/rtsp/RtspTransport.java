@@ -0,0 +1,24 @@
+/**
+ * Copyright XpertSoftware All rights reserved.
+ *
+ * Date: 10/18/2026
+ */
+package xpertss.rtsp;
+
+/**
+ * An enumeration of the lower transports over which media may be delivered.
+ */
+public enum RtspTransport {
+
+   /**
+    * Media is interleaved with the control connection over TCP.
+    */
+   Tcp,
+
+   /**
+    * Media is delivered over a pair of unicast UDP sockets, one for RTP and
+    * the other for RTCP.
+    */
+   Udp
+
+}
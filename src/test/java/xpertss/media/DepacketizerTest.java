@@ -0,0 +1,156 @@
+package xpertss.media;
+
+import org.junit.Test;
+import xpertss.nio.BufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DepacketizerTest {
+
+   private static final byte[] SPS = { 0x67, 0x42, 0x00, 0x1f };
+   private static final byte[] PPS = { 0x68, (byte) 0xce, 0x3c, (byte) 0x80 };
+
+   private final List<AccessUnit> units = new ArrayList<>();
+   private int sequence = 100;
+
+   @Test
+   public void testSingleNalUnits()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), null, units::add);
+      depacketizer.consume(packet(1000, false, 0x06, 1, 2));
+      depacketizer.consume(packet(1000, true, 0x41, 3, 4, 5));
+      assertEquals(1, units.size());
+      AccessUnit unit = units.get(0);
+      assertEquals(1000, unit.getTimestamp());
+      assertFalse(unit.isKeyframe());
+      assertEquals(2, unit.getCount());
+      assertEquals(7, unit.length());
+      assertEquals(0x41, unit.get(1).get(0));
+      unit.release();
+   }
+
+   @Test
+   public void testTimestampChangeFlushes()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), null, units::add);
+      depacketizer.consume(packet(1000, false, 0x41, 1));
+      assertEquals(0, units.size());
+      depacketizer.consume(packet(2000, false, 0x41, 2));
+      assertEquals(1, units.size());
+      assertEquals(1000, units.get(0).getTimestamp());
+   }
+
+   @Test
+   public void testStapA()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), null, units::add);
+      depacketizer.consume(packet(1000, true, 24, 0, 2, 0x67, 1, 0, 3, 0x68, 2, 3));
+      AccessUnit unit = units.get(0);
+      assertEquals(2, unit.getCount());
+      assertEquals(2, unit.get(0).remaining());
+      assertEquals(3, unit.get(1).remaining());
+      assertEquals(3, unit.get(1).get(2));
+   }
+
+   @Test
+   public void testFuAReassemblyWithParameterSets()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), new byte[][] { SPS, PPS }, units::add);
+      depacketizer.consume(packet(1000, false, 0x7c, 0x85, 1, 2));
+      depacketizer.consume(packet(1000, false, 0x7c, 0x05, 3, 4));
+      depacketizer.consume(packet(1000, true, 0x7c, 0x45, 5));
+      AccessUnit unit = units.get(0);
+      assertTrue(unit.isKeyframe());
+      assertEquals(3, unit.getCount());
+      assertEquals(0x67, unit.get(0).get(0));
+      assertEquals(0x68, unit.get(1).get(0));
+      ByteBuffer idr = unit.get(2);
+      assertEquals(6, idr.remaining());
+      assertEquals(0x65, idr.get(0));
+      assertEquals(5, idr.get(5));
+
+      ByteBuffer annexB = ByteBuffer.allocate(64);
+      assertEquals(26, unit.writeTo(annexB));
+      assertEquals(1, annexB.getInt(0));
+   }
+
+   @Test
+   public void testInbandParameterSetsNotDuplicated()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), new byte[][] { SPS, PPS }, units::add);
+      depacketizer.consume(packet(1000, false, 0x67, 9));
+      depacketizer.consume(packet(1000, true, 0x65, 1));
+      assertEquals(2, units.get(0).getCount());
+   }
+
+   @Test
+   public void testPacketLossDropsUnit()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), null, units::add);
+      depacketizer.consume(packet(1000, false, 0x7c, 0x85, 1, 2));
+      sequence++;
+      depacketizer.consume(packet(1000, true, 0x7c, 0x45, 5));
+      assertEquals(0, units.size());
+      depacketizer.consume(packet(2000, true, 0x41, 1));
+      assertEquals(1, units.size());
+      assertEquals(2000, units.get(0).getTimestamp());
+      assertEquals(1, depacketizer.getUnitsDropped());
+   }
+
+   @Test
+   public void testLossBeforeNewUnitDropsIt()
+   {
+      Depacketizer depacketizer = new H264Depacketizer(new BufferPool(), null, units::add);
+      depacketizer.consume(packet(1000, true, 0x41, 1));
+      sequence++;
+      depacketizer.consume(packet(2000, true, 0x7c, 0x45, 5));
+      assertEquals(1, units.size());
+      depacketizer.consume(packet(3000, true, 0x41, 2));
+      assertEquals(2, units.size());
+      assertEquals(1, depacketizer.getUnitsDropped());
+   }
+
+   @Test
+   public void testH265Fragmentation()
+   {
+      Depacketizer depacketizer = new H265Depacketizer(new BufferPool(), null, units::add);
+      // FU of an IDR_W_RADL (19) nal unit
+      depacketizer.consume(packet(1000, false, 49 << 1, 1, 0x80 | 19, 1, 2));
+      depacketizer.consume(packet(1000, true, 49 << 1, 1, 0x40 | 19, 3));
+      AccessUnit unit = units.get(0);
+      assertTrue(unit.isKeyframe());
+      ByteBuffer nal = unit.get(0);
+      assertEquals(5, nal.remaining());
+      assertEquals(19 << 1, nal.get(0));
+      assertEquals(1, nal.get(1));
+      assertEquals(3, nal.get(4));
+   }
+
+   @Test
+   public void testParseFormat()
+   {
+      Map<String,String> params = Depacketizer.parseFormat("96 packetization-mode=1; sprop-parameter-sets=Z0IAHw==,aM48gA==");
+      assertEquals("1", params.get("packetization-mode"));
+      byte[][] sets = Depacketizer.decode(params.get("sprop-parameter-sets"));
+      assertEquals(2, sets.length);
+      assertArrayEquals(SPS, sets[0]);
+      assertArrayEquals(PPS, sets[1]);
+   }
+
+
+   private ByteBuffer packet(long timestamp, boolean marker, int ... payload)
+   {
+      ByteBuffer buf = ByteBuffer.allocate(12 + payload.length);
+      buf.put((byte) 0x80).put((byte) ((marker ? 0x80 : 0) | 96)).putShort((short) sequence++);
+      buf.putInt((int) timestamp).putInt(0x1234);
+      for(int b : payload) buf.put((byte) b);
+      buf.flip();
+      return buf;
+   }
+
+}
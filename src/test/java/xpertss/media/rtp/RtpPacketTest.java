@@ -0,0 +1,95 @@
+package xpertss.media.rtp;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class RtpPacketTest {
+
+   @Test
+   public void testBasicHeader()
+   {
+      ByteBuffer buf = ByteBuffer.allocate(16);
+      buf.put((byte) 0x80).put((byte) (0x80 | 96)).putShort((short) 0xfffe);
+      buf.putInt(0xfffffff0).putInt(0x12345678).putInt(0x01020304);
+      buf.flip();
+
+      RtpPacket packet = new RtpPacket().wrap(buf);
+      assertEquals(2, packet.getVersion());
+      assertTrue(packet.isMarker());
+      assertFalse(packet.hasPadding());
+      assertFalse(packet.hasExtension());
+      assertEquals(96, packet.getPayloadType());
+      assertEquals(0xfffe, packet.getSequence());
+      assertEquals(0xfffffff0L, packet.getTimestamp());
+      assertEquals(0x12345678L, packet.getSsrc());
+      assertEquals(0, packet.getCsrcCount());
+      assertEquals(12, packet.getPayloadOffset());
+      assertEquals(4, packet.getPayloadLength());
+      assertEquals(0x01020304, packet.getPayload().getInt());
+      assertEquals(0, buf.position());
+   }
+
+   @Test
+   public void testCsrcExtensionAndPadding()
+   {
+      ByteBuffer buf = ByteBuffer.allocate(40);
+      buf.put((byte) (0x80 | 0x20 | 0x10 | 2)).put((byte) 8).putShort((short) 1);
+      buf.putInt(1000).putInt(7);
+      buf.putInt(11).putInt(22);                             // csrcs
+      buf.putShort((short) 0xbede).putShort((short) 1).putInt(0xaabbccdd);  // extension
+      buf.put((byte) 1).put((byte) 2).put((byte) 3);         // payload
+      buf.put((byte) 0).put((byte) 0).put((byte) 3);         // padding
+      buf.flip();
+
+      RtpPacket packet = new RtpPacket().wrap(buf);
+      assertFalse(packet.isMarker());
+      assertEquals(8, packet.getPayloadType());
+      assertEquals(2, packet.getCsrcCount());
+      assertEquals(11, packet.getCsrc(0));
+      assertEquals(22, packet.getCsrc(1));
+      assertEquals(0xbede, packet.getExtensionProfile());
+      assertEquals(4, packet.getExtensionLength());
+      assertEquals(0xaabbccdd, packet.getExtension().getInt());
+      assertEquals(3, packet.getPayloadLength());
+      assertEquals(3, packet.getPayload().get(2));
+   }
+
+   @Test
+   public void testReuseWithOffset()
+   {
+      ByteBuffer buf = ByteBuffer.allocate(20);
+      buf.position(4);
+      buf.put((byte) 0x80).put((byte) 0).putShort((short) 42).putInt(0).putInt(0);
+      buf.flip().position(4);
+
+      RtpPacket packet = new RtpPacket();
+      assertSame(packet, packet.wrap(buf));
+      assertEquals(42, packet.getSequence());
+      assertEquals(16, packet.getPayloadOffset());
+      assertEquals(0, packet.getPayloadLength());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testTooShort()
+   {
+      new RtpPacket().wrap(ByteBuffer.allocate(8));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testWrongVersion()
+   {
+      new RtpPacket().wrap(ByteBuffer.allocate(12));
+   }
+
+   @Test(expected = IndexOutOfBoundsException.class)
+   public void testCsrcOutOfRange()
+   {
+      ByteBuffer buf = ByteBuffer.allocate(12);
+      buf.put(0, (byte) 0x80);
+      new RtpPacket().wrap(buf).getCsrc(0);
+   }
+
+}
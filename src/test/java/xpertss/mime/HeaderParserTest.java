@@ -38,4 +38,15 @@ public class HeaderParserTest {
       assertEquals(2, parts.length);
    }
 
-}
\ No newline at end of file
+   @Test
+   public void testCaseInsensitiveLookup()
+   {
+      Header header = HeaderParser.parse("content-length", "200");
+      assertEquals("Content-Length", header.getName());
+      assertEquals(Header.Type.Entity, header.getType());
+      assertEquals("CSeq", HeaderParser.canonicalize("CSEQ"));
+      assertEquals("X-Unknown", HeaderParser.canonicalize("X-Unknown"));
+      assertSame("RTP-Info", HeaderParser.canonicalize("rtp-info"));
+   }
+
+}
@@ -2,6 +2,7 @@ package xpertss.mime;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Enumeration;
 
 import static org.junit.Assert.*;
@@ -92,4 +93,31 @@ public class HeadersTest {
    }
 
 
-}
\ No newline at end of file
+   @Test
+   public void testSetReplacesInPlace()
+   {
+      Headers headers = new Headers(Headers.Type.Rtsp);
+      headers.setHeader("X-First", "1");
+      headers.setHeader("Session", "2");
+      headers.setHeader("X-Second", "3");
+      headers.setHeader("CSeq", "4");
+      headers.setHeader("x-first", "5");
+
+      Enumeration<Header> e = headers.headers();
+      assertEquals("4", Headers.toString(e.nextElement()));
+      assertEquals("2", Headers.toString(e.nextElement()));
+      assertEquals("5", Headers.toString(e.nextElement()));
+      assertEquals("3", Headers.toString(e.nextElement()));
+      assertFalse(e.hasMoreElements());
+      assertEquals(1, headers.getHeaders("X-FIRST").length);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testRemoveReadOnly()
+   {
+      Headers headers = Headers.create(Arrays.asList("CSeq: 1", "Session: 12345"));
+      headers.remove("Session");
+   }
+
+
+}
@@ -0,0 +1,54 @@
+package xpertss.net;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.nio.channels.DatagramChannel;
+
+import static org.junit.Assert.*;
+
+public class PortAllocatorTest {
+
+   @Test
+   public void testEvenOddPair() throws IOException
+   {
+      PortAllocator allocator = new PortAllocator(41001, 41020);
+      assertEquals(41002, allocator.getLower());
+      DatagramChannel[] pair = allocator.allocate();
+      try {
+         int port = pair[0].socket().getLocalPort();
+         assertEquals(0, port % 2);
+         assertEquals(port + 1, pair[1].socket().getLocalPort());
+         assertFalse(pair[0].isBlocking());
+      } finally {
+         pair[0].close();
+         pair[1].close();
+      }
+   }
+
+   @Test
+   public void testExhausted() throws IOException
+   {
+      PortAllocator allocator = new PortAllocator(41100, 41103);
+      DatagramChannel[] one = allocator.allocate();
+      DatagramChannel[] two = allocator.allocate();
+      try {
+         assertTrue(one[0].socket().getLocalPort() != two[0].socket().getLocalPort());
+         allocator.allocate();
+         fail("expected bind exception");
+      } catch(BindException e) {
+         // expected
+      } finally {
+         one[0].close(); one[1].close();
+         two[0].close(); two[1].close();
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidRange()
+   {
+      new PortAllocator(41000, 41000);
+   }
+
+}
@@ -0,0 +1,59 @@
+package xpertss.nio;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class BufferPoolTest {
+
+   @Test
+   public void testSizeClasses()
+   {
+      BufferPool pool = new BufferPool();
+      ByteBuffer small = pool.acquire(10);
+      assertEquals(256, small.capacity());
+      assertEquals(10, small.limit());
+      assertEquals(0, small.position());
+      assertEquals(512, pool.acquire(257).capacity());
+      assertEquals(65536, pool.acquire(65535).capacity());
+      assertEquals(70000, pool.acquire(70000).capacity());
+   }
+
+   @Test
+   public void testReuse()
+   {
+      BufferPool pool = new BufferPool();
+      ByteBuffer buf = pool.acquire(1000);
+      buf.put((byte) 1);
+      pool.release(buf);
+      ByteBuffer reused = pool.acquire(600);
+      assertSame(buf, reused);
+      assertEquals(0, reused.position());
+      assertEquals(600, reused.limit());
+      assertNotSame(reused, pool.acquire(600));
+   }
+
+   @Test
+   public void testRetainLimit()
+   {
+      BufferPool pool = new BufferPool(false, 1);
+      ByteBuffer one = pool.acquire(100);
+      ByteBuffer two = pool.acquire(100);
+      pool.release(one);
+      pool.release(two);
+      assertSame(one, pool.acquire(100));
+      assertNotSame(two, pool.acquire(100));
+   }
+
+   @Test
+   public void testForeignBuffersIgnored()
+   {
+      BufferPool pool = new BufferPool();
+      pool.release(ByteBuffer.allocateDirect(256));
+      pool.release(ByteBuffer.allocate(300));
+      assertFalse(pool.acquire(256).isDirect());
+   }
+
+}
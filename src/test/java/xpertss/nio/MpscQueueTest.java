@@ -0,0 +1,72 @@
+package xpertss.nio;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MpscQueueTest {
+
+   @Test
+   public void testCapacityRoundedToPowerOfTwo()
+   {
+      assertEquals(8, new MpscQueue<String>(5).capacity());
+      assertEquals(8, new MpscQueue<String>(8).capacity());
+   }
+
+   @Test
+   public void testBounded()
+   {
+      MpscQueue<String> queue = new MpscQueue<>(2);
+      assertTrue(queue.isEmpty());
+      assertTrue(queue.offer("one"));
+      assertTrue(queue.offer("two"));
+      assertFalse(queue.offer("three"));
+      assertEquals(2, queue.size());
+      assertEquals("one", queue.poll());
+      assertTrue(queue.offer("three"));
+      assertEquals("two", queue.poll());
+      assertEquals("three", queue.poll());
+      assertNull(queue.poll());
+      assertTrue(queue.isEmpty());
+   }
+
+   @Test
+   public void testDrainLimit()
+   {
+      MpscQueue<Integer> queue = new MpscQueue<>(16);
+      for(int i = 0; i < 10; i++) queue.offer(i);
+      List<Integer> results = new ArrayList<>();
+      assertEquals(4, queue.drain(results::add, 4));
+      assertEquals(6, queue.drain(results::add, 100));
+      for(int i = 0; i < 10; i++) assertEquals(i, results.get(i).intValue());
+   }
+
+   @Test
+   public void testMultipleProducers() throws Exception
+   {
+      final MpscQueue<Long> queue = new MpscQueue<>(64);
+      final int producers = 4, count = 10000;
+      Thread[] threads = new Thread[producers];
+      for(int i = 0; i < producers; i++) {
+         threads[i] = new Thread(() -> {
+            for(long j = 1; j <= count; j++) {
+               while(!queue.offer(j)) Thread.yield();
+            }
+         });
+         threads[i].start();
+      }
+      AtomicLong sum = new AtomicLong();
+      long expected = producers * ((long) count * (count + 1) / 2);
+      while(sum.get() < expected) {
+         if(queue.drain(sum::addAndGet, 32) == 0) Thread.yield();
+      }
+      for(Thread thread : threads) thread.join();
+      assertEquals(expected, sum.get());
+      assertTrue(queue.isEmpty());
+   }
+
+}
@@ -0,0 +1,52 @@
+package xpertss.nio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NioClockTest {
+
+   @Test
+   public void testCoarseUntilAdvanced() throws Exception
+   {
+      NioClock clock = new NioClock();
+      long nanos = clock.nanoTime(), millis = clock.currentTimeMillis();
+      Thread.sleep(5);
+      assertEquals(nanos, clock.nanoTime());
+      assertEquals(millis, clock.currentTimeMillis());
+      clock.advance();
+      assertTrue(clock.nanoTime() - nanos >= 5000000L);
+      assertTrue(clock.currentTimeMillis() > millis);
+   }
+
+   @Test
+   public void testPrecise() throws Exception
+   {
+      NioClock clock = new NioClock();
+      clock.setPrecise(true);
+      long nanos = clock.nanoTime();
+      Thread.sleep(5);
+      assertTrue(clock.nanoTime() - nanos >= 5000000L);
+      clock.setPrecise(false);
+      assertFalse(clock.isPrecise());
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void testSystemAlwaysPrecise()
+   {
+      assertTrue(NioClock.SYSTEM.isPrecise());
+      NioClock.SYSTEM.setPrecise(false);
+   }
+
+   @Test
+   public void testStatsUseClock() throws Exception
+   {
+      NioClock clock = new NioClock();
+      NioStats stats = new NioStats(clock);
+      Thread.sleep(5);
+      stats.record(10);
+      assertEquals(clock.currentTimeMillis(), stats.getTime());
+      assertEquals(10, stats.getCount());
+   }
+
+}
@@ -0,0 +1,51 @@
+package xpertss.nio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NioReactorGroupTest {
+
+   private static final NioProvider PROVIDER = new NioProvider() {
+      public Thread newThread(Runnable r) { return new Thread(r); }
+      public void serviceException(Exception error) { }
+   };
+
+   @Test
+   public void testLeastLoadedSpreadsBurst()
+   {
+      NioReactorGroup group = new NioReactorGroup(PROVIDER, 4);
+      group.setPolicy(NioReactorGroup.Policy.LeastLoaded);
+      // Nothing registers a channel so the selector load never changes
+      for(int i = 0; i < 40; i++) group.next();
+      for(NioService service : group.getServices()) {
+         assertEquals(0, service.getLoad());
+         assertEquals(10, ((NioReactor) service).getSessionCount());
+      }
+   }
+
+   @Test
+   public void testLeastLoadedFillsDetached()
+   {
+      NioReactorGroup group = new NioReactorGroup(PROVIDER, 3);
+      group.setPolicy(NioReactorGroup.Policy.LeastLoaded);
+      for(int i = 0; i < 9; i++) group.next();
+      NioService drained = group.getServices().get(1);
+      drained.detach();
+      drained.detach();
+      assertSame(drained, group.next());
+      assertSame(drained, group.next());
+      assertEquals(3, ((NioReactor) drained).getSessionCount());
+   }
+
+   @Test
+   public void testRoundRobinCountsSessions()
+   {
+      NioReactorGroup group = new NioReactorGroup(PROVIDER, 2);
+      NioService first = group.next();
+      assertNotSame(first, group.next());
+      assertSame(first, group.next());
+      assertEquals(2, ((NioReactor) first).getSessionCount());
+   }
+
+}
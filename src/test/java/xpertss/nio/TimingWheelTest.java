@@ -0,0 +1,87 @@
+package xpertss.nio;
+
+import org.junit.Test;
+
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+   private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+   @Test
+   public void testEmpty()
+   {
+      TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8);
+      assertEquals(-1, wheel.nextDelay(System.nanoTime()));
+   }
+
+   @Test
+   public void testExpiration()
+   {
+      long start = System.nanoTime();
+      TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8);
+      List<TimingWheel.Entry> expired = new ArrayList<>();
+      TimingWheel.Entry first = wheel.newEntry(new TestAction(), start + 25 * MS);
+      TimingWheel.Entry second = wheel.newEntry(new TestAction(), start + 45 * MS);
+      wheel.add(second);
+      wheel.add(first);
+      assertTrue(wheel.nextDelay(start) <= 40 * MS);
+
+      wheel.advance(start + 5 * MS, expired::add);
+      assertTrue(expired.isEmpty());
+
+      wheel.advance(start + 40 * MS, expired::add);
+      assertEquals(1, expired.size());
+      assertSame(first, expired.get(0));
+      assertTrue(first.isExpired());
+      assertFalse(first.cancel());
+
+      wheel.advance(start + 60 * MS, expired::add);
+      assertEquals(2, expired.size());
+      assertEquals(0, wheel.size());
+   }
+
+   @Test
+   public void testMultipleRotations()
+   {
+      long start = System.nanoTime();
+      TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8);
+      List<TimingWheel.Entry> expired = new ArrayList<>();
+      // eight buckets of 10ms is an 80ms rotation
+      TimingWheel.Entry entry = wheel.newEntry(new TestAction(), start + 205 * MS);
+      wheel.add(entry);
+      for(int i = 10; i < 200; i += 10) {
+         wheel.advance(start + i * MS, expired::add);
+         assertTrue(expired.isEmpty());
+      }
+      wheel.advance(start + 230 * MS, expired::add);
+      assertEquals(1, expired.size());
+   }
+
+   @Test
+   public void testCancel()
+   {
+      long start = System.nanoTime();
+      TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 8);
+      List<TimingWheel.Entry> expired = new ArrayList<>();
+      TimingWheel.Entry entry = wheel.newEntry(new TestAction(), start + 25 * MS);
+      wheel.add(entry);
+      assertTrue(entry.cancel());
+      assertTrue(entry.isCancelled());
+      wheel.advance(start + 100 * MS, expired::add);
+      assertTrue(expired.isEmpty());
+      assertEquals(0, wheel.size());
+   }
+
+
+   private static class TestAction implements NioAction {
+      @Override public void execute(Selector selector) { }
+      @Override public Selectable getSelectable() { return null; }
+   }
+
+}
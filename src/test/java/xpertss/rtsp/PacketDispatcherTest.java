@@ -0,0 +1,97 @@
+package xpertss.rtsp;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PacketDispatcherTest {
+
+   private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+   private final List<Integer> delivered = new ArrayList<>();
+
+   @Test
+   public void testDeliversInOrder()
+   {
+      PacketDispatcher dispatcher = create(8, OverflowPolicy.DropOldest);
+      for(int i = 0; i < 5; i++) assertTrue(dispatcher.offer(i & 1, packet(i), null));
+      assertEquals(1, tasks.size());
+      assertEquals(5, dispatcher.getDepth());
+      runAll();
+      assertEquals(5, delivered.size());
+      for(int i = 0; i < 5; i++) assertEquals(i, delivered.get(i).intValue());
+      assertEquals(0, dispatcher.getDepth());
+   }
+
+   @Test
+   public void testDropOldest()
+   {
+      PacketDispatcher dispatcher = create(4, OverflowPolicy.DropOldest);
+      for(int i = 0; i < 6; i++) assertTrue(dispatcher.offer(0, packet(i), null));
+      assertEquals(4, dispatcher.getDepth());
+      assertEquals(2, dispatcher.getDropped());
+      runAll();
+      assertEquals(4, delivered.size());
+      assertEquals(2, delivered.get(0).intValue());
+      assertEquals(5, delivered.get(3).intValue());
+   }
+
+   @Test
+   public void testDropNonKeyframe()
+   {
+      PacketDispatcher dispatcher = create(2, OverflowPolicy.DropNonKeyframe);
+      dispatcher.offer(0, packet(0), null);
+      dispatcher.offer(0, packet(1), null);
+      assertTrue(dispatcher.offer(0, packet(2), data -> false));
+      assertTrue(dispatcher.offer(0, packet(3), data -> true));
+      assertEquals(2, dispatcher.getDropped());
+      runAll();
+      assertEquals(2, delivered.size());
+      assertEquals(1, delivered.get(0).intValue());
+      assertEquals(3, delivered.get(1).intValue());
+   }
+
+   @Test
+   public void testDisconnect()
+   {
+      PacketDispatcher dispatcher = create(2, OverflowPolicy.Disconnect);
+      assertTrue(dispatcher.offer(0, packet(0), null));
+      assertTrue(dispatcher.offer(0, packet(1), null));
+      assertFalse(dispatcher.offer(0, packet(2), null));
+   }
+
+   @Test
+   public void testCopiesPacket()
+   {
+      PacketDispatcher dispatcher = create(2, OverflowPolicy.DropOldest);
+      ByteBuffer data = packet(7);
+      dispatcher.offer(0, data, null);
+      data.putInt(0, 9);
+      runAll();
+      assertEquals(7, delivered.get(0).intValue());
+   }
+
+
+   private PacketDispatcher create(int capacity, OverflowPolicy policy)
+   {
+      return new PacketDispatcher(tasks::add, capacity, policy, (data, channel) -> delivered.add(data.getInt(0)));
+   }
+
+   private void runAll()
+   {
+      Runnable task;
+      while((task = tasks.poll()) != null) task.run();
+   }
+
+   private static ByteBuffer packet(int value)
+   {
+      ByteBuffer buf = ByteBuffer.allocate(4);
+      buf.putInt(0, value);
+      return buf;
+   }
+
+}
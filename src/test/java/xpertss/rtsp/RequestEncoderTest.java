@@ -0,0 +1,63 @@
+package xpertss.rtsp;
+
+import org.junit.Test;
+import xpertss.mime.Headers;
+import xpertss.nio.BufferPool;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import static xpertss.io.Charsets.US_ASCII;
+
+public class RequestEncoderTest {
+
+   private final BufferPool pool = new BufferPool();
+
+   @Test
+   public void testEncode()
+   {
+      RequestEncoder encoder = new RequestEncoder("Test/1.0");
+      RtspRequest request = RtspMethod.Play.createRequest();
+      Headers headers = request.getHeaders();
+      headers.setHeader("Range", "npt=0.000-");
+      headers.setHeader("Session", "12345678");
+
+      ByteBuffer encoded = encoder.encode(request, URI.create("rtsp://localhost/test"), 12, pool);
+      assertEquals("PLAY rtsp://localhost/test RTSP/1.0\r\n" +
+                   "CSeq: 12\r\n" +
+                   "User-Agent: Test/1.0\r\n" +
+                   "Session: 12345678\r\n" +
+                   "Range: npt=0.000-\r\n" +
+                   "\r\n", US_ASCII.decode(encoded).toString());
+   }
+
+   @Test
+   public void testCustomUserAgent()
+   {
+      RequestEncoder encoder = new RequestEncoder("Test/1.0");
+      RtspRequest request = RtspMethod.Options.createRequest();
+      request.getHeaders().setHeader("User-Agent", "Custom/2.0");
+
+      ByteBuffer encoded = encoder.encode(request, URI.create("rtsp://localhost/test"), 1, pool);
+      assertEquals("OPTIONS rtsp://localhost/test RTSP/1.0\r\n" +
+                   "CSeq: 1\r\n" +
+                   "User-Agent: Custom/2.0\r\n" +
+                   "\r\n", US_ASCII.decode(encoded).toString());
+   }
+
+   @Test
+   public void testLargeRequest()
+   {
+      RequestEncoder encoder = new RequestEncoder("Test/1.0");
+      RtspRequest request = RtspMethod.Describe.createRequest();
+      StringBuilder value = new StringBuilder();
+      for(int i = 0; i < 3000; i++) value.append('a');
+      request.getHeaders().setHeader("X-Large", value.toString());
+
+      ByteBuffer encoded = encoder.encode(request, URI.create("rtsp://localhost/test"), 100, pool);
+      assertTrue(encoded.remaining() > 3000);
+      assertTrue(US_ASCII.decode(encoded).toString().endsWith(value + "\r\n\r\n"));
+   }
+
+}
@@ -0,0 +1,88 @@
+package xpertss.rtsp;
+
+import org.junit.Test;
+import xpertss.mime.Headers;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import static xpertss.io.Charsets.US_ASCII;
+
+public class ResponseParserTest {
+
+   @Test
+   public void testCompleteResponse() throws IOException
+   {
+      ResponseParser parser = new ResponseParser();
+      ByteBuffer src = US_ASCII.encode("RTSP/1.0 200 OK\r\nCSeq: 2\r\nSession: 12345678;timeout=60\r\n\r\n$");
+      RtspResponse response = parser.parse(src);
+      assertNotNull(response);
+      assertEquals(RtspStatus.Ok, response.getStatus());
+      assertEquals("OK", response.getStatusReason());
+      Headers headers = response.getHeaders();
+      assertEquals("2", Headers.toString(headers.getHeader("CSeq")));
+      assertEquals("12345678", headers.getHeader("Session").getValue(0).getValue());
+      assertEquals(1, src.remaining());  // interleaved data is left in place
+   }
+
+   @Test
+   public void testSplitResponse() throws IOException
+   {
+      ResponseParser parser = new ResponseParser();
+      byte[] raw = "RTSP/1.0 454 Session Not Found\r\nCSeq: 7\r\n\r\n".getBytes(US_ASCII);
+      RtspResponse response = null;
+      for(int i = 0; i < raw.length; i++) {
+         assertNull(response);
+         response = parser.parse(ByteBuffer.wrap(raw, i, 1));
+      }
+      assertNotNull(response);
+      assertEquals(RtspStatus.SessionNotFound, response.getStatus());
+      assertEquals("Session Not Found", response.getStatusReason());
+      assertEquals("7", Headers.toString(response.getHeaders().getHeader("cseq")));
+   }
+
+   @Test
+   public void testReuse() throws IOException
+   {
+      ResponseParser parser = new ResponseParser();
+      ByteBuffer src = US_ASCII.encode("RTSP/1.0 200 OK\nCSeq: 1\n\nRTSP/1.0 404 Not Found\r\nCSeq: 2\r\n\r\n");
+      assertEquals(RtspStatus.Ok, parser.parse(src).getStatus());
+      RtspResponse response = parser.parse(src);
+      assertEquals(RtspStatus.NotFound, response.getStatus());
+      assertEquals("2", Headers.toString(response.getHeaders().getHeader("CSeq")));
+   }
+
+   @Test
+   public void testFoldedHeader() throws IOException
+   {
+      ResponseParser parser = new ResponseParser();
+      ByteBuffer src = US_ASCII.encode("RTSP/1.0 200 OK\r\nCSeq: 3\r\nX-Folded: OPTIONS,\r\n  DESCRIBE\r\n\r\n");
+      RtspResponse response = parser.parse(src);
+      assertEquals("OPTIONS,  DESCRIBE", Headers.toString(response.getHeaders().getHeader("X-Folded")));
+   }
+
+   @Test(expected = ProtocolException.class)
+   public void testMalformedStatusLine() throws IOException
+   {
+      new ResponseParser().parse(US_ASCII.encode("RTSP/1.0 OK\r\n\r\n"));
+   }
+
+   @Test(expected = ProtocolException.class)
+   public void testLineTooLong() throws IOException
+   {
+      StringBuilder builder = new StringBuilder("RTSP/1.0 200 OK\r\nX-Long: ");
+      for(int i = 0; i < 2048; i++) builder.append('a');
+      new ResponseParser().parse(US_ASCII.encode(builder.append("\r\n\r\n").toString()));
+   }
+
+   @Test(expected = ProtocolException.class)
+   public void testTooManyLines() throws IOException
+   {
+      StringBuilder builder = new StringBuilder("RTSP/1.0 200 OK\r\n");
+      for(int i = 0; i < 30; i++) builder.append("X-Header: ").append(i).append("\r\n");
+      new ResponseParser().parse(US_ASCII.encode(builder.append("\r\n").toString()));
+   }
+
+}